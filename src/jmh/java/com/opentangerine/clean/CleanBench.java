@@ -0,0 +1,180 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 opentangerine.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.opentangerine.clean;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import org.apache.commons.io.FileUtils;
+import org.apache.log4j.Level;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of crawling, matching, sizing and dry-run cleaning of
+ * synthetic workspaces.
+ *
+ * @author Grzegorz Gajos (grzegorz.gajos@opentangerine.com)
+ * @version $Id$
+ * @since 1.1
+ * @checkstyle VisibilityModifierCheck (500 lines)
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class CleanBench {
+
+    /**
+     * Shape of workspace.
+     */
+    @Param({"WIDE", "DEEP", "MODULES", "GENERATED", "TARGETS"})
+    public Workspace shape;
+
+    /**
+     * Root of workspace.
+     */
+    private transient Path root;
+
+    /**
+     * Directory to clean.
+     */
+    private transient Path workspace;
+
+    /**
+     * What clean should find, if it is known.
+     */
+    private transient Optional<Generator.Expected> expected;
+
+    /**
+     * Listings of all directories of workspace.
+     */
+    private transient List<Listing> listings;
+
+    /**
+     * Create workspace.
+     * @throws IOException If fails.
+     */
+    @Setup
+    public void setup() throws IOException {
+        org.apache.log4j.Logger.getRootLogger().setLevel(Level.WARN);
+        this.root = Files.createTempDirectory("ot-clean-bench");
+        this.expected = this.shape.create(this.root);
+        this.workspace = this.expected
+            .map(Generator.Expected::workspace)
+            .orElse(this.root);
+        this.listings = new ArrayList<>(0);
+        new Walk(
+            (Listing listing) -> {
+                this.listings.add(listing);
+                return (path, attrs) -> true;
+            },
+            1,
+            0
+        ).start(this.workspace);
+    }
+
+    /**
+     * Remove workspace.
+     * @throws IOException If fails.
+     */
+    @TearDown
+    public void teardown() throws IOException {
+        FileUtils.deleteDirectory(this.root.toFile());
+    }
+
+    /**
+     * Visit every directory of workspace.
+     * @return Number of directories.
+     */
+    @Benchmark
+    public long crawl() {
+        final LongAdder dirs = new LongAdder();
+        new Walk(dir -> dirs.increment()).start(this.workspace);
+        return dirs.sum();
+    }
+
+    /**
+     * Match all definitions against every directory of workspace.
+     * @return Bits of matched types.
+     */
+    @Benchmark
+    public int match() {
+        final Mode mode = new Mode();
+        final Delete delete = new Delete(mode, new Summary(mode), true);
+        final Dispatch dispatch = new Dispatch(Wipe.DEFAULT);
+        int types = 0;
+        for (final Listing listing : this.listings) {
+            types |= dispatch.matched(delete, listing);
+        }
+        delete.finish();
+        return types;
+    }
+
+    /**
+     * Measure whole workspace.
+     * @return Number of bytes.
+     */
+    @Benchmark
+    public long size() {
+        return new Size().of(this.workspace);
+    }
+
+    /**
+     * Clean workspace in readonly mode, and check what has been found if
+     * it is known.
+     * @return Number of bytes found.
+     */
+    @Benchmark
+    public long clean() {
+        final Mode mode = new Mode();
+        final Summary summary = new Summary(mode);
+        new Clean(mode, new Index(), summary).clean(this.workspace);
+        if (this.expected.isPresent()
+            && (summary.elements() != this.expected.get().elements()
+            || summary.bytes() != this.expected.get().bytes())) {
+            throw new IllegalStateException(
+                String.format(
+                    "Found %d element(s) [%d bytes], expected %d [%d bytes]",
+                    summary.elements(),
+                    summary.bytes(),
+                    this.expected.get().elements(),
+                    this.expected.get().bytes()
+                )
+            );
+        }
+        return summary.bytes();
+    }
+}
@@ -0,0 +1,164 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 opentangerine.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.opentangerine.clean;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of {@link Replace} and {@link Yconfig#load(File)}.
+ *
+ * @author Grzegorz Gajos (grzegorz.gajos@opentangerine.com)
+ * @version $Id$
+ * @since 1.1
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class TextBench {
+
+    /**
+     * Number of lines of text and number of config files, more than
+     * config cache is able to keep.
+     */
+    private static final int COUNT = 2048;
+
+    /**
+     * Content of config file.
+     */
+    private transient String text;
+
+    /**
+     * Values of variables.
+     */
+    private transient Map<String, String> values;
+
+    /**
+     * Directory with config files.
+     */
+    private transient Path dir;
+
+    /**
+     * Config files.
+     */
+    private transient File[] configs;
+
+    /**
+     * Next config file to parse.
+     */
+    private transient int next;
+
+    /**
+     * Create config files.
+     * @throws IOException If fails.
+     */
+    @Setup
+    public void setup() throws IOException {
+        this.values = new HashMap<>(0);
+        final StringBuilder yml = new StringBuilder(0);
+        for (int idx = 0; idx < TextBench.COUNT; ++idx) {
+            final String name = String.format("${var%d}", idx % 64);
+            this.values.put(name, String.format("value%d", idx));
+            yml.append(String.format("- *%s/target/*.log\n", name));
+        }
+        this.text = yml.toString();
+        this.dir = Files.createTempDirectory("ot-clean-bench");
+        this.configs = new File[TextBench.COUNT];
+        for (int idx = 0; idx < TextBench.COUNT; ++idx) {
+            this.configs[idx] = this.dir
+                .resolve(String.format("%d.yml", idx)).toFile();
+            FileUtils.write(
+                this.configs[idx],
+                StringUtils.join("dirs:\n- ../a\ndeletes:\n", this.text),
+                StandardCharsets.UTF_8
+            );
+        }
+    }
+
+    /**
+     * Remove config files.
+     * @throws IOException If fails.
+     */
+    @TearDown
+    public void teardown() throws IOException {
+        FileUtils.deleteDirectory(this.dir.toFile());
+    }
+
+    /**
+     * Apply chain of line transformations.
+     * @return Output.
+     */
+    @Benchmark
+    public String lines() {
+        return new Replace(this.text)
+            .replace(line -> line.contains("- *"), line -> line.concat("\""))
+            .replace("target", "build")
+            .output();
+    }
+
+    /**
+     * Replace many literals at once.
+     * @return Output.
+     */
+    @Benchmark
+    public String literals() {
+        return new Replace(this.text).replace(this.values).output();
+    }
+
+    /**
+     * Load the same config file again, it is parsed only once.
+     * @return Config.
+     */
+    @Benchmark
+    public Yconfig cached() {
+        return Yconfig.load(this.configs[0]);
+    }
+
+    /**
+     * Load config files in round robin, more of them than cache is able
+     * to keep, so every one of them is parsed.
+     * @return Config.
+     */
+    @Benchmark
+    public Yconfig parsed() {
+        this.next = (this.next + 1) % TextBench.COUNT;
+        return Yconfig.load(this.configs[this.next]);
+    }
+}
@@ -0,0 +1,159 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 opentangerine.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.opentangerine.clean;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Shapes of synthetic workspaces used by benchmarks.
+ *
+ * @author Grzegorz Gajos (grzegorz.gajos@opentangerine.com)
+ * @version $Id$
+ * @since 1.1
+ */
+enum Workspace {
+    /**
+     * Many independent Maven projects side by side.
+     */
+    WIDE {
+        @Override
+        Optional<Generator.Expected> create(final Path root)
+            throws IOException {
+            for (int idx = 0; idx < 2000; ++idx) {
+                Workspace.maven(root.resolve(String.format("p%d", idx)), 2);
+            }
+            return Optional.empty();
+        }
+    },
+    /**
+     * Long chain of nested directories, Maven project on every tenth level.
+     */
+    DEEP {
+        @Override
+        Optional<Generator.Expected> create(final Path root)
+            throws IOException {
+            Path dir = root;
+            for (int idx = 0; idx < 300; ++idx) {
+                dir = dir.resolve(String.format("d%d", idx));
+                Files.createDirectories(dir);
+                if (idx % 10 == 0) {
+                    Workspace.maven(dir, 2);
+                }
+            }
+            return Optional.empty();
+        }
+    },
+    /**
+     * Multi module Maven projects with many small modules.
+     */
+    MODULES {
+        @Override
+        Optional<Generator.Expected> create(final Path root)
+            throws IOException {
+            for (int parent = 0; parent < 20; ++parent) {
+                final Path dir = root.resolve(String.format("r%d", parent));
+                Workspace.maven(dir, 1);
+                for (int module = 0; module < 25; ++module) {
+                    Workspace.maven(
+                        dir.resolve(String.format("m%d", module)), 4
+                    );
+                }
+            }
+            return Optional.empty();
+        }
+    },
+    /**
+     * Projects of all types mixed with decoys, see {@link Generator},
+     * which is the only shape with known result of clean.
+     */
+    GENERATED {
+        @Override
+        Optional<Generator.Expected> create(final Path root)
+            throws IOException {
+            return Optional.of(new Generator(1L, 3000).create(root));
+        }
+    },
+    /**
+     * Few Maven projects with huge target directories.
+     */
+    TARGETS {
+        @Override
+        Optional<Generator.Expected> create(final Path root)
+            throws IOException {
+            for (int idx = 0; idx < 4; ++idx) {
+                Workspace.maven(root.resolve(String.format("t%d", idx)), 5000);
+            }
+            return Optional.empty();
+        }
+    };
+
+    /**
+     * Size of every generated file.
+     */
+    private static final int BYTES = 512;
+
+    /**
+     * Create workspace of this shape.
+     *
+     * @param root Empty directory.
+     * @return What clean of the workspace should find, if it is known.
+     * @throws IOException If fails.
+     */
+    abstract Optional<Generator.Expected> create(Path root)
+        throws IOException;
+
+    /**
+     * Create Maven project with sources and compiled classes.
+     *
+     * @param dir Directory of project.
+     * @param classes Number of compiled classes, in packages of 100.
+     * @throws IOException If fails.
+     */
+    private static void maven(final Path dir, final int classes)
+        throws IOException {
+        Files.createDirectories(dir.resolve("src/main/java"));
+        Workspace.file(dir.resolve("pom.xml"));
+        Workspace.file(dir.resolve("src/main/java/App.java"));
+        for (int idx = 0; idx < classes; ++idx) {
+            final Path pkg = dir.resolve(
+                String.format("target/classes/p%d", idx / 100)
+            );
+            Files.createDirectories(pkg);
+            Workspace.file(pkg.resolve(String.format("C%d.class", idx)));
+        }
+    }
+
+    /**
+     * Create file.
+     *
+     * @param path Path of file.
+     * @throws IOException If fails.
+     */
+    private static void file(final Path path) throws IOException {
+        Files.write(path, new byte[Workspace.BYTES]);
+    }
+}
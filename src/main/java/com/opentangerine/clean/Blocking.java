@@ -0,0 +1,129 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 opentangerine.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.opentangerine.clean;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Runner for blocking filesystem work. Number of units in flight is
+ * bounded, so the process never runs out of file descriptors. Inside of a
+ * {@link ForkJoinPool} every unit holding a permit runs as
+ * {@link ForkJoinPool.ManagedBlocker}, so the pool adds a spare thread
+ * for every worker blocked by the filesystem and up to limit units are in
+ * flight, even with less workers. Waiting for a permit is not managed, so
+ * no spare threads are added just to wait behind the limit. Limit of zero
+ * turns the runner off and every unit of work is executed directly.
+ *
+ * @author Grzegorz Gajos (grzegorz.gajos@opentangerine.com)
+ * @version $Id$
+ * @since 1.1
+ */
+final class Blocking {
+
+    /**
+     * Permits for units of work in flight.
+     */
+    private final transient Semaphore permits;
+
+    /**
+     * Is runner enabled.
+     */
+    private final transient boolean enabled;
+
+    /**
+     * Ctor.
+     *
+     * @param limit Maximum number of units of work in flight.
+     */
+    Blocking(final int limit) {
+        this.permits = new Semaphore(limit);
+        this.enabled = limit > 0;
+    }
+
+    /**
+     * Execute unit of work and wait until it is finished.
+     *
+     * @param unit Unit of work.
+     */
+    public void run(final Runnable unit) {
+        if (this.enabled) {
+            try {
+                this.permits.acquire();
+            } catch (final InterruptedException exc) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted", exc);
+            }
+            try {
+                ForkJoinPool.managedBlock(new Blocking.Unit(unit));
+            } catch (final InterruptedException exc) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted", exc);
+            } finally {
+                this.permits.release();
+            }
+        } else {
+            unit.run();
+        }
+    }
+
+    /**
+     * Unit of work holding a permit.
+     */
+    private static final class Unit implements ForkJoinPool.ManagedBlocker {
+
+        /**
+         * Work.
+         */
+        private final transient Runnable work;
+
+        /**
+         * Is work done.
+         */
+        private transient boolean done;
+
+        /**
+         * Ctor.
+         *
+         * @param cwork Work.
+         */
+        Unit(final Runnable cwork) {
+            this.work = cwork;
+        }
+
+        @Override
+        public boolean block() {
+            if (!this.done) {
+                this.done = true;
+                this.work.run();
+            }
+            return true;
+        }
+
+        @Override
+        public boolean isReleasable() {
+            return this.done;
+        }
+    }
+}
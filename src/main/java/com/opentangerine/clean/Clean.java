@@ -24,10 +24,8 @@
 package com.opentangerine.clean;
 
 import com.jcabi.log.Logger;
-import java.io.File;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.Arrays;
 import org.apache.log4j.Level;
 
 /**
@@ -38,6 +36,11 @@ import org.apache.log4j.Level;
  * @since 0.5
  */
 public final class Clean {
+    /**
+     * Cleaning mode.
+     */
+    private final transient Mode mode;
+
     /**
      * Cleaning summary.
      */
@@ -48,6 +51,21 @@ public final class Clean {
      */
     private final transient Delete delete;
 
+    /**
+     * Cleaning definitions.
+     */
+    private final transient Dispatch wipe;
+
+    /**
+     * Index of previous runs.
+     */
+    private final transient Index index;
+
+    /**
+     * Metrics of the run.
+     */
+    private final transient Metrics metrics;
+
     /**
      * Clean application.
      *
@@ -62,11 +80,36 @@ public final class Clean {
      *
      * initialization of cleanables
      *
-     * @param mode Mode.
+     * @param cmode Mode.
      */
-    public Clean(final Mode mode) {
-        this.summary = new Summary(mode);
-        this.delete = new Delete(mode, this.summary);
+    public Clean(final Mode cmode) {
+        this(cmode, Index.of(cmode));
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param cmode Mode.
+     * @param cindex Index of previous runs.
+     */
+    Clean(final Mode cmode, final Index cindex) {
+        this(cmode, cindex, new Summary(cmode));
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param cmode Mode.
+     * @param cindex Index of previous runs.
+     * @param csummary Summary.
+     */
+    Clean(final Mode cmode, final Index cindex, final Summary csummary) {
+        this.mode = cmode;
+        this.index = cindex;
+        this.summary = csummary;
+        this.metrics = new Metrics(cmode);
+        this.delete = new Delete(cmode, this.summary, true, this.metrics);
+        this.wipe = new Dispatch(Wipe.DEFAULT);
     }
 
     /**
@@ -88,45 +131,42 @@ public final class Clean {
      * @param path Working directory.
      */
     public void clean(final Path path) {
-        this.recurrence(path);
-        this.summary.finished();
+        try {
+            final Jump jump = new Jump(path);
+            jump.run(root -> this.recurrence(jump, root));
+            this.delete.finish();
+            this.index.save(path);
+        } finally {
+            try {
+                this.summary.finished();
+            } finally {
+                this.metrics.export();
+            }
+        }
     }
 
     /**
      * Execute cleaning for current and nested directories.
      *
+     * @param jump Jump scheduler.
      * @param path Current path.
      */
-    private void recurrence(final Path path) {
-        Wipe.DEFAULT.forEach(
-            it -> {
-                it.clean(this.delete, path);
-                this.jump(path);
-            }
-        );
-        final File[] files = path.toFile().listFiles(File::isDirectory);
-        if (files != null) {
-            Arrays
-                .stream(files)
-                .forEach(it -> this.recurrence(it.toPath()));
-        }
-    }
-
-    /**
-     * Check if configuration of clean defines dirs section and crawler
-     * should jump to different directory.
-     * @param path Working directory.
-     */
-    private void jump(final Path path) {
-        Yconfig
-            .load(path.resolve(".clean.yml").toFile())
-            .dirs().forEach(
-                (dir) -> {
-                    final Path target = path.resolve(dir);
-                    Logger.debug(this, "Jumping to %s", target);
-                    this.recurrence(target);
-                }
-            );
+    private void recurrence(final Jump jump, final Path path) {
+        new Walk(
+            (Path dir) -> this.index.list(
+                dir, !this.delete.active(dir), this.metrics
+            ),
+            (Listing listing) -> {
+                this.metrics.increment(Metrics.Counter.DIRECTORIES);
+                this.index.record(
+                    listing, this.wipe.matched(this.delete, listing)
+                );
+                jump.schedule(listing);
+                return this.delete.entries(listing.path());
+            },
+            this.mode.workers(),
+            this.mode.inflight()
+        ).start(path);
     }
 
 }
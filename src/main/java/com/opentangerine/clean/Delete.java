@@ -24,17 +24,40 @@
 package com.opentangerine.clean;
 
 import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
 import java.nio.file.Path;
-import org.apache.commons.io.FileUtils;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiPredicate;
+import java.util.stream.Stream;
 
 /**
- * Class responsible for all delete operations.
+ * Class responsible for all delete operations. Every path is handled once,
+ * even if it is matched by many definitions or many threads at the same time.
+ * Paths inside of already handled directories are skipped.
+ *
+ * <p>Matched paths are claimed right away, so crawler never looks inside
+ * of them, and passed to the pipeline of measure, delete and report
+ * stages. In pipelined mode every stage runs on its own threads, so the
+ * crawler does not wait for big directories to be measured or deleted.
+ *
+ * <p>Patterns are scanned right away, unless delete is driven by the
+ * crawler. In such case they are evaluated while crawling, see
+ * {@link Sweep}, and crawler has to ask {@link #entries(Path)} which
+ * entries of every directory to visit.
  *
  * @author Grzegorz Gajos (grzegorz.gajos@opentangerine.com)
  * @version $Id$
  * @since 0.5
  */
 public final class Delete {
+    /**
+     * Capacity of queues between stages in pipelined mode.
+     */
+    private static final int CAPACITY = 1024;
     /**
      * Clean mode.
      */
@@ -43,6 +66,35 @@ public final class Delete {
      * Summary.
      */
     private final transient Summary summary;
+    /**
+     * Paths already handled.
+     */
+    private final transient Set<Path> claims;
+    /**
+     * Size accounting.
+     */
+    private final transient Size size;
+    /**
+     * Deletion engine.
+     */
+    private final transient Unlink unlink;
+    /**
+     * Trash.
+     */
+    private final transient Trash trash;
+    /**
+     * Stages of handling matched paths.
+     */
+    private final transient Pipeline<Delete.Match> pipeline;
+    /**
+     * Patterns evaluated by the crawler, empty if patterns are scanned
+     * right away.
+     */
+    private final transient Optional<Sweep> sweep;
+    /**
+     * Metrics of the run.
+     */
+    private final transient Metrics metrics;
 
     /**
      * Ctor.
@@ -50,8 +102,54 @@ public final class Delete {
      * @param csummary Summary.
      */
     public Delete(final Mode cmode, final Summary csummary) {
+        this(cmode, csummary, false);
+    }
+
+    /**
+     * Ctor.
+     * @param cmode Clean mode.
+     * @param csummary Summary.
+     * @param crawled Is it driven by the crawler, in such case stages run
+     *  in background and {@link #finish()} has to be called at the end.
+     */
+    public Delete(final Mode cmode, final Summary csummary,
+        final boolean crawled) {
+        this(cmode, csummary, crawled, Metrics.DISABLED);
+    }
+
+    /**
+     * Ctor.
+     * @param cmode Clean mode.
+     * @param csummary Summary.
+     * @param crawled Is it driven by the crawler, in such case stages run
+     *  in background and {@link #finish()} has to be called at the end.
+     * @param cmetrics Metrics of the run.
+     * @checkstyle ParameterNumberCheck (3 lines)
+     */
+    Delete(final Mode cmode, final Summary csummary, final boolean crawled,
+        final Metrics cmetrics) {
         this.mode = cmode;
         this.summary = csummary;
+        this.metrics = cmetrics;
+        this.claims = ConcurrentHashMap.newKeySet();
+        this.size = new Size(cmode.workers(), cmetrics);
+        this.unlink = new Unlink(csummary, cmetrics);
+        int threads = 0;
+        if (cmode.trash()) {
+            threads = cmode.workers();
+        }
+        this.trash = new Trash(csummary, this.unlink, threads);
+        int capacity = 0;
+        Optional<Sweep> patterns = Optional.empty();
+        if (crawled) {
+            capacity = Delete.CAPACITY;
+            patterns = Optional.of(new Sweep(this::file));
+        }
+        this.sweep = patterns;
+        this.pipeline = new Pipeline<Delete.Match>(capacity)
+            .stage("measure", cmode.workers(), this::measure)
+            .stage("delete", cmode.workers(), this::delete)
+            .stage("report", 1, this::report);
     }
 
     /**
@@ -67,11 +165,212 @@ public final class Delete {
      * @param file File.
      */
     public void file(final File file) {
-        if (file.exists()) {
-            this.summary.add(file);
-            if (!this.mode.readonly()) {
-                FileUtils.deleteQuietly(file);
+        final Path path = Delete.key(file.toPath());
+        if (Files.exists(path, LinkOption.NOFOLLOW_LINKS)
+            && !this.covered(path) && this.claims.add(path)) {
+            this.pipeline.submit(
+                new Delete.Match(
+                    path, Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)
+                )
+            );
+        }
+    }
+
+    /**
+     * Deletes files/dirs matching patterns relative to given directory.
+     * @param dir Directory.
+     * @param glob Patterns.
+     */
+    void matching(final Path dir, final Glob glob) {
+        if (this.sweep.isPresent()) {
+            this.sweep.get().add(dir, glob);
+        } else {
+            try (Stream<Path> found =
+                new Scan(this.metrics).scan(dir, glob)) {
+                found.forEach(this::file);
+            }
+        }
+    }
+
+    /**
+     * Metrics of the run.
+     * @return Metrics.
+     */
+    Metrics metrics() {
+        return this.metrics;
+    }
+
+    /**
+     * Check if directory visited by the crawler has to be listed, because
+     * patterns of its parents are active there.
+     * @param dir Directory.
+     * @return True if entries of directory have to be tested.
+     */
+    public boolean active(final Path dir) {
+        return this.sweep.isPresent() && this.sweep.get().active(dir);
+    }
+
+    /**
+     * Handler of entries of directory visited by the crawler. Deletes
+     * entries matching patterns of the directory and its parents.
+     * @param dir Directory.
+     * @return Handler that tells if entry should be visited.
+     */
+    public BiPredicate<Path, BasicFileAttributes> entries(final Path dir) {
+        final BiPredicate<Path, BasicFileAttributes> result;
+        if (this.sweep.isPresent()) {
+            result = this.sweep.get().entries(dir, this::claimed);
+        } else {
+            result = (entry, attrs) -> !this.claimed(entry);
+        }
+        return result;
+    }
+
+    /**
+     * Wait until all deletions running in background are finished.
+     */
+    public void finish() {
+        try {
+            this.pipeline.finish();
+        } finally {
+            this.trash.finish();
+        }
+    }
+
+    /**
+     * Check if file/dir under given path has been already handled, so
+     * there is no need to look inside of it anymore.
+     * @param path Path.
+     * @return True if path has been claimed by one of the cleaners.
+     */
+    public boolean claimed(final Path path) {
+        final Path key = Delete.key(path);
+        return this.claims.contains(key)
+            || (this.mode.trash() && key.endsWith(Trash.NAME));
+    }
+
+    /**
+     * Measure stage. Only in readonly mode, deleted files are measured
+     * while deleting.
+     * @param match Matched path.
+     * @return Measured path.
+     */
+    private Optional<Delete.Match> measure(final Delete.Match match) {
+        Delete.Match result = match;
+        if (this.mode.readonly()) {
+            result = match.measured(this.size.of(match.path, this::claimed));
+        }
+        return Optional.of(result);
+    }
+
+    /**
+     * Delete stage. Paths that are already gone and paths moved to trash
+     * are not passed further, trash reports them on its own.
+     * @param match Matched path.
+     * @return Deleted path.
+     */
+    private Optional<Delete.Match> delete(final Delete.Match match) {
+        Optional<Delete.Match> result = Optional.of(match);
+        if (!this.mode.readonly()) {
+            final long start = this.metrics.clock();
+            if (!Files.exists(match.path, LinkOption.NOFOLLOW_LINKS)
+                || this.trash.dispose(match.path, match.directory)) {
+                result = Optional.empty();
+            } else {
+                final long removed = this.unlink.remove(match.path);
+                result = Optional.of(
+                    match.measured(new Size.Bytes(removed, removed))
+                );
             }
+            this.metrics.stop(Metrics.Phase.DELETE, start);
+        }
+        return result;
+    }
+
+    /**
+     * Report stage.
+     * @param match Matched path.
+     * @return Reported path.
+     */
+    private Optional<Delete.Match> report(final Delete.Match match) {
+        this.summary.add(match.path, match.directory, match.bytes);
+        return Optional.of(match);
+    }
+
+    /**
+     * Check if any of the parent directories has been already handled.
+     * @param path Path.
+     * @return True if path is inside of claimed directory.
+     */
+    private boolean covered(final Path path) {
+        boolean result = false;
+        for (Path dir = path.getParent(); dir != null && !result;
+            dir = dir.getParent()) {
+            result = this.claims.contains(dir);
+        }
+        return result;
+    }
+
+    /**
+     * Unique key of the path.
+     * @param path Path.
+     * @return Absolute and normalized path.
+     */
+    private static Path key(final Path path) {
+        return path.toAbsolutePath().normalize();
+    }
+
+    /**
+     * Matched path on its way through the stages.
+     */
+    private static final class Match {
+        /**
+         * Path.
+         */
+        private final transient Path path;
+        /**
+         * Is it a directory.
+         */
+        private final transient boolean directory;
+        /**
+         * Size, known after measure or delete stage.
+         */
+        private final transient Size.Bytes bytes;
+
+        /**
+         * Ctor.
+         * @param cpath Path.
+         * @param cdirectory Is it a directory.
+         */
+        Match(final Path cpath, final boolean cdirectory) {
+            this(cpath, cdirectory, new Size.Bytes(0L, 0L));
+        }
+
+        /**
+         * Ctor.
+         * @param cpath Path.
+         * @param cdirectory Is it a directory.
+         * @param cbytes Size.
+         */
+        Match(final Path cpath, final boolean cdirectory,
+            final Size.Bytes cbytes) {
+            this.path = cpath;
+            this.directory = cdirectory;
+            this.bytes = cbytes;
+        }
+
+        /**
+         * Same path with known size.
+         * @param size Size.
+         * @return Measured path.
+         */
+        public Delete.Match measured(final Size.Bytes size) {
+            return new Delete.Match(this.path, this.directory, size);
+        }
+
+        @Override
+        public String toString() {
+            return this.path.toString();
         }
     }
 }
@@ -0,0 +1,121 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 opentangerine.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.opentangerine.clean;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dispatcher of cleaning definitions. Definitions are indexed by names
+ * of their marker files, so listing of directory yields only definitions
+ * whose markers are present and the cost of matching does not grow with
+ * the number of definitions. Candidates are executed in the order of
+ * definitions.
+ *
+ * @author Grzegorz Gajos (grzegorz.gajos@opentangerine.com)
+ * @version $Id$
+ * @since 1.1
+ */
+final class Dispatch implements Wipe {
+
+    /**
+     * Definitions in original order.
+     */
+    private final transient List<Wipe.Definition> definitions;
+
+    /**
+     * Positions of definitions by name of marker file.
+     */
+    private final transient Map<String, List<Integer>> index;
+
+    /**
+     * Ctor.
+     *
+     * @param cdefinitions Definitions.
+     */
+    Dispatch(final List<Wipe.Definition> cdefinitions) {
+        this.definitions = new ArrayList<>(cdefinitions);
+        this.index = new HashMap<>(cdefinitions.size() << 1);
+        for (int pos = 0; pos < this.definitions.size(); ++pos) {
+            this.index.computeIfAbsent(
+                this.definitions.get(pos).marker(),
+                name -> new ArrayList<>(1)
+            ).add(pos);
+        }
+    }
+
+    @Override
+    public void clean(final Delete delete, final Listing listing) {
+        this.matched(delete, listing);
+    }
+
+    /**
+     * Clean listed directory using all matching definitions.
+     *
+     * @param delete Deletion handler.
+     * @param listing Listing of working directory.
+     * @return Bits of types of definitions that have matched.
+     */
+    public int matched(final Delete delete, final Listing listing) {
+        final BitSet candidates = new BitSet(this.definitions.size());
+        if (this.index.size() <= listing.size()) {
+            for (final Map.Entry<String, List<Integer>> entry
+                : this.index.entrySet()) {
+                if (listing.contains(entry.getKey())) {
+                    Dispatch.mark(candidates, entry.getValue());
+                }
+            }
+        } else {
+            for (final String name : listing.names()) {
+                final List<Integer> positions = this.index.get(name);
+                if (positions != null) {
+                    Dispatch.mark(candidates, positions);
+                }
+            }
+        }
+        int types = 0;
+        for (int pos = candidates.nextSetBit(0); pos >= 0;
+            pos = candidates.nextSetBit(pos + 1)) {
+            types |= this.definitions.get(pos).matched(delete, listing);
+        }
+        return types;
+    }
+
+    /**
+     * Mark definitions as candidates.
+     *
+     * @param candidates Candidates.
+     * @param positions Positions of definitions.
+     */
+    private static void mark(final BitSet candidates,
+        final Collection<Integer> positions) {
+        for (final Integer pos : positions) {
+            candidates.set(pos);
+        }
+    }
+}
@@ -0,0 +1,402 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 opentangerine.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.opentangerine.clean;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.StringTokenizer;
+
+/**
+ * Compiled set of path patterns. Uses the same syntax as
+ * DirectoryScanner: '*' matches zero or more characters of a name, '?'
+ * matches one character, '**' matches zero or more directories, both
+ * '/' and '\' separate directories, pattern ending with separator
+ * matches everything below and matching ignores case.
+ *
+ * <p>Patterns are compiled once into an automaton over path names. Path
+ * is matched name by name, starting from {@link #start()} and calling
+ * {@link Glob.State#next(String)} for every name, so a walk can match
+ * every entry it visits in constant time and skip directories that
+ * cannot contain any match.
+ *
+ * @author Grzegorz Gajos (grzegorz.gajos@opentangerine.com)
+ * @version $Id$
+ * @since 1.1
+ */
+final class Glob {
+
+    /**
+     * Maximum number of compiled pattern sets kept in memory.
+     */
+    private static final int CACHED = 1024;
+
+    /**
+     * Compiled pattern sets.
+     */
+    private static final LoadingCache<List<String>, Glob> CACHE =
+        CacheBuilder.newBuilder()
+            .maximumSize(Glob.CACHED)
+            .build(
+                new CacheLoader<List<String>, Glob>() {
+                    @Override
+                    public Glob load(final List<String> patterns) {
+                        return new Glob(patterns);
+                    }
+                }
+            );
+
+    /**
+     * Tokens of all patterns, every pattern ends with null token that
+     * marks a match.
+     */
+    private final transient Glob.Token[] tokens;
+
+    /**
+     * Initial state.
+     */
+    private final transient Glob.State initial;
+
+    /**
+     * Ctor.
+     *
+     * @param patterns Patterns.
+     */
+    private Glob(final List<String> patterns) {
+        final List<Glob.Token> all = new ArrayList<>(0);
+        final List<Integer> starts = new ArrayList<>(patterns.size());
+        for (final String pattern : patterns) {
+            starts.add(all.size());
+            all.addAll(Glob.tokenize(pattern));
+            all.add(null);
+        }
+        this.tokens = all.toArray(new Glob.Token[all.size()]);
+        final int[] positions = new int[starts.size()];
+        for (int idx = 0; idx < positions.length; ++idx) {
+            positions[idx] = starts.get(idx);
+        }
+        this.initial = this.closure(positions, positions.length);
+    }
+
+    /**
+     * Compile patterns, compiled sets are cached.
+     *
+     * @param patterns Patterns.
+     * @return Compiled patterns.
+     */
+    public static Glob compile(final String... patterns) {
+        return Glob.CACHE.getUnchecked(
+            Collections.unmodifiableList(Arrays.asList(patterns.clone()))
+        );
+    }
+
+    /**
+     * State of matching the base directory itself.
+     *
+     * @return State.
+     */
+    public Glob.State start() {
+        return this.initial;
+    }
+
+    /**
+     * Check if any of the patterns matches relative path.
+     *
+     * @param path Names of the relative path.
+     * @return True if matches.
+     */
+    public boolean matches(final String... path) {
+        Glob.State state = this.initial;
+        for (final String name : path) {
+            state = state.next(name);
+        }
+        return state.matches();
+    }
+
+    /**
+     * Split pattern into tokens.
+     *
+     * @param pattern Pattern.
+     * @return Tokens.
+     */
+    private static List<Glob.Token> tokenize(final String pattern) {
+        String normalized = pattern.replace('\\', '/');
+        if (normalized.endsWith("/")) {
+            normalized = String.format("%s**", normalized);
+        }
+        final StringTokenizer names = new StringTokenizer(normalized, "/");
+        final List<Glob.Token> result = new ArrayList<>(names.countTokens());
+        while (names.hasMoreTokens()) {
+            result.add(new Glob.Token(names.nextToken()));
+        }
+        return result;
+    }
+
+    /**
+     * Add positions reachable by skipping '**' tokens.
+     *
+     * @param positions Positions, only first ones are used.
+     * @param size Number of positions to use.
+     * @return State.
+     */
+    private Glob.State closure(final int[] positions, final int size) {
+        final boolean[] seen = new boolean[this.tokens.length];
+        final int[] result = new int[this.tokens.length];
+        int count = 0;
+        for (int idx = 0; idx < size; ++idx) {
+            int pos = positions[idx];
+            while (!seen[pos]) {
+                seen[pos] = true;
+                result[count] = pos;
+                ++count;
+                if (this.tokens[pos] == null || !this.tokens[pos].deep()) {
+                    break;
+                }
+                ++pos;
+            }
+        }
+        final int[] sorted = Arrays.copyOf(result, count);
+        Arrays.sort(sorted);
+        return new Glob.State(sorted);
+    }
+
+    /**
+     * State of matching, i.e. positions in all patterns reached so far.
+     * States are equal if they will match the same paths from now on, no
+     * matter how they were reached.
+     */
+    final class State {
+
+        /**
+         * Positions.
+         */
+        private final transient int[] positions;
+
+        /**
+         * Ctor.
+         *
+         * @param cpositions Positions.
+         */
+        State(final int[] cpositions) {
+            this.positions = cpositions;
+        }
+
+        /**
+         * State after matching next name of the path.
+         *
+         * @param name Name of file or directory.
+         * @return Next state.
+         */
+        public Glob.State next(final String name) {
+            final int[] next = new int[this.positions.length];
+            int count = 0;
+            for (final int pos : this.positions) {
+                final Glob.Token token = Glob.this.tokens[pos];
+                if (token != null) {
+                    if (token.deep()) {
+                        next[count] = pos;
+                        ++count;
+                    } else if (token.matches(name)) {
+                        next[count] = pos + 1;
+                        ++count;
+                    }
+                }
+            }
+            return Glob.this.closure(next, count);
+        }
+
+        /**
+         * Does any pattern match the path matched so far.
+         *
+         * @return True if matches.
+         */
+        public boolean matches() {
+            boolean result = false;
+            for (final int pos : this.positions) {
+                if (Glob.this.tokens[pos] == null) {
+                    result = true;
+                    break;
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Could any pattern match something below the path matched
+         * so far.
+         *
+         * @return True if it makes sense to look inside.
+         */
+        public boolean alive() {
+            boolean result = false;
+            for (final int pos : this.positions) {
+                if (Glob.this.tokens[pos] != null) {
+                    result = true;
+                    break;
+                }
+            }
+            return result;
+        }
+
+        @Override
+        public boolean equals(final Object other) {
+            return this == other || other instanceof Glob.State
+                && this.glob() == ((Glob.State) other).glob()
+                && Arrays.equals(
+                    this.positions, ((Glob.State) other).positions
+                );
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(Glob.this) * 31
+                + Arrays.hashCode(this.positions);
+        }
+
+        /**
+         * Compiled patterns of this state.
+         *
+         * @return Glob.
+         */
+        private Glob glob() {
+            return Glob.this;
+        }
+    }
+
+    /**
+     * Single name of the pattern.
+     */
+    private static final class Token {
+
+        /**
+         * Pattern of the name.
+         */
+        private final transient String name;
+
+        /**
+         * Pattern of the name, in upper case.
+         */
+        private final transient char[] chars;
+
+        /**
+         * Is it '**'.
+         */
+        private final transient boolean any;
+
+        /**
+         * Does it contain wildcards.
+         */
+        private final transient boolean wild;
+
+        /**
+         * Ctor.
+         *
+         * @param cname Pattern of the name.
+         */
+        Token(final String cname) {
+            this.name = cname;
+            this.chars = cname.toUpperCase(Locale.ENGLISH).toCharArray();
+            this.any = "**".equals(cname);
+            this.wild = cname.indexOf('*') >= 0 || cname.indexOf('?') >= 0;
+        }
+
+        /**
+         * Is it '**' token that matches any number of directories.
+         *
+         * @return True if deep.
+         */
+        public boolean deep() {
+            return this.any;
+        }
+
+        /**
+         * Does the name match this token, ignoring case.
+         *
+         * @param entry Name.
+         * @return True if matches.
+         */
+        public boolean matches(final String entry) {
+            final boolean result;
+            if (this.wild) {
+                result = this.wildcard(entry);
+            } else {
+                result = entry.equalsIgnoreCase(this.name);
+            }
+            return result;
+        }
+
+        /**
+         * Match name against pattern with '*' and '?' wildcards.
+         *
+         * @param name Name.
+         * @return True if matches.
+         */
+        private boolean wildcard(final String name) {
+            int pat = 0;
+            int str = 0;
+            int star = -1;
+            int mark = 0;
+            boolean result = true;
+            while (str < name.length()) {
+                if (pat < this.chars.length && (this.chars[pat] == '?'
+                    || this.chars[pat] == Token.upper(name.charAt(str)))) {
+                    ++pat;
+                    ++str;
+                } else if (pat < this.chars.length
+                    && this.chars[pat] == '*') {
+                    star = pat;
+                    mark = str;
+                    ++pat;
+                } else if (star >= 0) {
+                    pat = star + 1;
+                    ++mark;
+                    str = mark;
+                } else {
+                    result = false;
+                    break;
+                }
+            }
+            while (result && pat < this.chars.length
+                && this.chars[pat] == '*') {
+                ++pat;
+            }
+            return result && pat == this.chars.length;
+        }
+
+        /**
+         * Upper case version of the character.
+         *
+         * @param chr Character.
+         * @return Upper case character.
+         */
+        private static char upper(final char chr) {
+            return Character.toUpperCase(chr);
+        }
+    }
+}
@@ -0,0 +1,348 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 opentangerine.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.opentangerine.clean;
+
+import com.jcabi.log.Logger;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Persistent index of crawled directories. Remembers modification time
+ * of every directory, types of definitions that matched it and names of
+ * its subdirectories. Index of previous run is memory mapped, see
+ * {@link Records}, records of current run are kept until it is saved.
+ *
+ * <p>Directory that has not changed since previous run and where nothing
+ * matched, is not listed again. Its subdirectories are taken from the
+ * index, so it costs a single stat of every subdirectory instead of
+ * listing all entries and reading their attributes. Sizes of matched
+ * directories are always measured again, as modification time of the
+ * matched directory itself tells nothing about changes deeper inside.
+ * Modification time of directory changes only when its entries are
+ * added, removed or renamed, so files changed in place are not noticed,
+ * remove the index to start from scratch. Directories modified less than
+ * two seconds before they were listed are never reused, as their
+ * modification time could have been changed again within the same tick of
+ * the clock.
+ *
+ * @author Grzegorz Gajos (grzegorz.gajos@opentangerine.com)
+ * @version $Id$
+ * @since 1.1
+ */
+final class Index {
+
+    /**
+     * Time in milliseconds when modification time is not trusted.
+     */
+    private static final long RACY = 2000L;
+
+    /**
+     * Location of index file, empty if index is disabled.
+     */
+    private final transient Optional<Path> file;
+
+    /**
+     * Records of previous run.
+     */
+    private final transient Records previous;
+
+    /**
+     * Records of current run.
+     */
+    private final transient Map<Path, Index.Record> current;
+
+    /**
+     * Ctor of disabled index.
+     */
+    Index() {
+        this(Optional.empty());
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param location Location of index file.
+     */
+    Index(final Path location) {
+        this(Optional.of(location));
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param location Location of index file, empty if index is disabled.
+     */
+    private Index(final Optional<Path> location) {
+        this.file = location;
+        this.previous = location.map(Records::open).orElse(Records.EMPTY);
+        this.current = new ConcurrentHashMap<>(0);
+    }
+
+    /**
+     * Index in user home directory, if enabled by cleaning mode.
+     *
+     * @param mode Cleaning mode.
+     * @return Index.
+     */
+    public static Index of(final Mode mode) {
+        final Index index;
+        if (mode.incremental()) {
+            index = new Index(
+                Paths.get(System.getProperty("user.home"), ".ot-clean", "index")
+            );
+        } else {
+            index = new Index();
+        }
+        return index;
+    }
+
+    /**
+     * List directory, or take its subdirectories from the index if
+     * directory has not changed and nothing matched it before.
+     *
+     * @param dir Directory.
+     * @param reuse Can directory be taken from the index.
+     * @return Listing.
+     */
+    public Listing list(final Path dir, final boolean reuse) {
+        return this.list(dir, reuse, Metrics.DISABLED);
+    }
+
+    /**
+     * List directory, or take its subdirectories from the index if
+     * directory has not changed and nothing matched it before.
+     *
+     * @param dir Directory.
+     * @param reuse Can directory be taken from the index.
+     * @param metrics Metrics of the run.
+     * @return Listing.
+     */
+    public Listing list(final Path dir, final boolean reuse,
+        final Metrics metrics) {
+        Listing listing;
+        if (this.file.isPresent()) {
+            try {
+                final long modified = Index.modified(dir);
+                final long id = this.previous.find(Index.key(dir));
+                if (reuse && id >= 0L && this.previous.modified(id) > 0L
+                    && this.previous.modified(id) == modified
+                    && this.previous.types(id) == 0) {
+                    listing = new Listing(
+                        dir, Index.subdirs(dir, this.previous.children(id)),
+                        modified
+                    );
+                } else {
+                    listing = Listing.of(dir, modified, metrics);
+                }
+            } catch (final IOException exc) {
+                Logger.debug(this, "Unable to stat %s: %s", dir, exc);
+                listing = Listing.of(dir, 0L, metrics);
+            }
+        } else {
+            listing = Listing.of(dir, 0L, metrics);
+        }
+        return listing;
+    }
+
+    /**
+     * Remember visited directory.
+     *
+     * @param listing Listing of directory.
+     * @param types Bits of types of definitions that matched it.
+     */
+    public void record(final Listing listing, final int types) {
+        if (this.file.isPresent() && listing.modified() > 0L) {
+            final List<String> subdirs = new ArrayList<>(0);
+            listing.forEach(
+                (entry, attrs) -> {
+                    if (attrs.isDirectory()) {
+                        subdirs.add(entry.getFileName().toString());
+                    }
+                }
+            );
+            this.current.put(
+                Index.key(listing.path()),
+                new Index.Record(
+                    Index.trusted(listing.modified()), types, subdirs
+                )
+            );
+        }
+    }
+
+    /**
+     * Save index. Records of previous run inside of crawled directory are
+     * replaced with records of current run.
+     *
+     * @param root Crawled directory.
+     */
+    public void save(final Path root) {
+        if (this.file.isPresent()) {
+            try {
+                this.previous.merge(
+                    this.file.get(), Index.key(root), this.current
+                );
+            } catch (final IOException exc) {
+                Logger.warn(
+                    this, "Unable to save index %s: %s", this.file.get(), exc
+                );
+            }
+        }
+    }
+
+    /**
+     * Subdirectories with their current attributes.
+     *
+     * @param dir Directory.
+     * @param children Names of subdirectories.
+     * @return Attributes of subdirectories by name.
+     */
+    private static Map<String, BasicFileAttributes> subdirs(final Path dir,
+        final List<String> children) {
+        final Map<String, BasicFileAttributes> result =
+            new LinkedHashMap<>(children.size() << 1);
+        for (final String child : children) {
+            try {
+                final BasicFileAttributes attrs = Files.readAttributes(
+                    dir.resolve(child), BasicFileAttributes.class,
+                    LinkOption.NOFOLLOW_LINKS
+                );
+                if (attrs.isDirectory()) {
+                    result.put(child, attrs);
+                }
+            } catch (final IOException exc) {
+                Logger.debug(Index.class, "Unable to visit %s: %s", child, exc);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Modification time of path.
+     *
+     * @param path Path.
+     * @return Time in milliseconds.
+     * @throws IOException If fails.
+     */
+    private static long modified(final Path path) throws IOException {
+        return Files.readAttributes(
+            path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS
+        ).lastModifiedTime().toMillis();
+    }
+
+    /**
+     * Modification time that can be trusted in next run.
+     *
+     * @param modified Modification time.
+     * @return Same time or 0 if it is too close to now.
+     */
+    private static long trusted(final long modified) {
+        long result = modified;
+        if (System.currentTimeMillis() - modified < Index.RACY) {
+            result = 0L;
+        }
+        return result;
+    }
+
+    /**
+     * Unique key of the path.
+     *
+     * @param path Path.
+     * @return Absolute and normalized path.
+     */
+    private static Path key(final Path path) {
+        return path.toAbsolutePath().normalize();
+    }
+
+    /**
+     * Indexed directory.
+     */
+    static final class Record {
+
+        /**
+         * Modification time, 0 if it cannot be trusted.
+         */
+        private final transient long modified;
+
+        /**
+         * Bits of types of definitions that matched directory.
+         */
+        private final transient int types;
+
+        /**
+         * Names of subdirectories.
+         */
+        private final transient List<String> children;
+
+        /**
+         * Ctor.
+         *
+         * @param cmodified Modification time.
+         * @param ctypes Bits of types of definitions.
+         * @param cchildren Names of subdirectories.
+         */
+        Record(final long cmodified, final int ctypes,
+            final List<String> cchildren) {
+            this.modified = cmodified;
+            this.types = ctypes;
+            this.children = cchildren;
+        }
+
+        /**
+         * Modification time.
+         *
+         * @return Time in milliseconds, 0 if it cannot be trusted.
+         */
+        public long modified() {
+            return this.modified;
+        }
+
+        /**
+         * Bits of types of definitions that matched directory.
+         *
+         * @return Bits.
+         */
+        public int matched() {
+            return this.types;
+        }
+
+        /**
+         * Names of subdirectories.
+         *
+         * @return Names.
+         */
+        public List<String> subdirs() {
+            return this.children;
+        }
+    }
+}
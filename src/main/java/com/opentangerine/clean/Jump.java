@@ -0,0 +1,143 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 opentangerine.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.opentangerine.clean;
+
+import com.jcabi.log.Logger;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+/**
+ * Jump scheduler. Collects directories listed in dirs section of
+ * .clean.yml files and hands every one of them to the crawler exactly once,
+ * no matter how many times or from where it is referenced. Jumps may be
+ * scheduled from many threads at once.
+ *
+ * @author Grzegorz Gajos (grzegorz.gajos@opentangerine.com)
+ * @version $Id$
+ * @since 1.1
+ */
+final class Jump {
+
+    /**
+     * Name of config file.
+     */
+    private static final String CONFIG = ".clean.yml";
+
+    /**
+     * Directories waiting to be crawled.
+     */
+    private final transient Queue<Path> pending;
+
+    /**
+     * Real paths of all directories scheduled so far.
+     */
+    private final transient Set<Path> visited;
+
+    /**
+     * Ctor.
+     *
+     * @param root Directory where crawling starts.
+     */
+    Jump(final Path root) {
+        this.pending = new ConcurrentLinkedQueue<>();
+        this.visited = new HashSet<>(1);
+        this.offer(root);
+    }
+
+    /**
+     * Schedule all jump targets defined by .clean.yml in given directory.
+     *
+     * @param path Working directory.
+     */
+    public void schedule(final Path path) {
+        Yconfig
+            .load(path.resolve(Jump.CONFIG).toFile())
+            .dirs()
+            .forEach(dir -> this.offer(path.resolve(dir)));
+    }
+
+    /**
+     * Schedule all jump targets defined by .clean.yml in listed directory,
+     * if there is such file.
+     *
+     * @param listing Listing of working directory.
+     */
+    public void schedule(final Listing listing) {
+        if (listing.contains(Jump.CONFIG)) {
+            this.schedule(listing.path());
+        }
+    }
+
+    /**
+     * Crawl all scheduled directories, including the ones scheduled
+     * while crawling.
+     *
+     * @param crawler Crawler.
+     */
+    public void run(final Consumer<Path> crawler) {
+        while (!this.pending.isEmpty()) {
+            crawler.accept(this.pending.poll());
+        }
+    }
+
+    /**
+     * Add directory to the queue unless it is already inside one of
+     * the directories scheduled before.
+     *
+     * @param target Directory.
+     */
+    private synchronized void offer(final Path target) {
+        try {
+            final Path real = target.toRealPath();
+            if (this.covered(real)) {
+                Logger.debug(this, "Already crawled %s", target);
+            } else {
+                Logger.debug(this, "Jumping to %s", target);
+                this.visited.add(real);
+                this.pending.add(target);
+            }
+        } catch (final IOException exc) {
+            Logger.debug(this, "Unable to jump to %s: %s", target, exc);
+        }
+    }
+
+    /**
+     * Check if directory or any of its parents has been scheduled.
+     *
+     * @param real Real path of directory.
+     * @return True if directory is going to be crawled anyway.
+     */
+    private boolean covered(final Path real) {
+        boolean result = false;
+        for (Path dir = real; dir != null && !result; dir = dir.getParent()) {
+            result = this.visited.contains(dir);
+        }
+        return result;
+    }
+}
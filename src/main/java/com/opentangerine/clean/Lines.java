@@ -0,0 +1,124 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 opentangerine.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.opentangerine.clean;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.function.Function;
+
+/**
+ * Streaming line transformer. Applies chain of steps, each of them with
+ * matching and transformation closure, to every line in a single pass
+ * from reader to writer. Lines that are not matched by any step are
+ * written as they are, so only changed lines cost new strings. Every
+ * line is followed by system line separator.
+ *
+ * @author Grzegorz Gajos (grzegorz.gajos@opentangerine.com)
+ * @version $Id$
+ * @since 1.1
+ */
+final class Lines {
+
+    /**
+     * All steps composed into single line transformation.
+     */
+    private final transient Function<String, String> steps;
+
+    /**
+     * Ctor of empty chain.
+     */
+    Lines() {
+        this(Function.identity());
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param csteps All steps composed into single line transformation.
+     */
+    private Lines(final Function<String, String> csteps) {
+        this.steps = csteps;
+    }
+
+    /**
+     * Chain with one more step.
+     *
+     * @param matching Closure that returns true if line has been matched.
+     * @param transformation Closure with line transformation.
+     * @return New chain.
+     */
+    public Lines then(final Function<String, Boolean> matching,
+        final Function<String, String> transformation) {
+        return new Lines(
+            this.steps.andThen(
+                line -> {
+                    String result = line;
+                    if (matching.apply(line)) {
+                        result = transformation.apply(line);
+                    }
+                    return result;
+                }
+            )
+        );
+    }
+
+    /**
+     * Transform all lines.
+     *
+     * @param input Reader.
+     * @param output Writer.
+     * @throws IOException If fails.
+     */
+    public void transform(final Reader input, final Writer output)
+        throws IOException {
+        final BufferedReader reader = new BufferedReader(input);
+        final String separator = System.lineSeparator();
+        for (String line = reader.readLine(); line != null;
+            line = reader.readLine()) {
+            output.write(this.steps.apply(line));
+            output.write(separator);
+        }
+    }
+
+    /**
+     * Transform all lines of text.
+     *
+     * @param text Text.
+     * @return Transformed text.
+     */
+    public String transform(final String text) {
+        final StringWriter output = new StringWriter(text.length());
+        try {
+            this.transform(new StringReader(text), output);
+        } catch (final IOException exc) {
+            throw new UncheckedIOException(exc);
+        }
+        return output.toString();
+    }
+}
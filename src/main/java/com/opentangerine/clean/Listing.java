@@ -0,0 +1,203 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 opentangerine.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.opentangerine.clean;
+
+import com.jcabi.log.Logger;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Snapshot of directory entries. Directory is listed once and all
+ * matchers ask the snapshot instead of checking the file system again.
+ * Symbolic links are not followed.
+ *
+ * @author Grzegorz Gajos (grzegorz.gajos@opentangerine.com)
+ * @version $Id$
+ * @since 1.1
+ */
+final class Listing {
+
+    /**
+     * Directory.
+     */
+    private final transient Path dir;
+
+    /**
+     * Attributes of entries by name.
+     */
+    private final transient Map<String, BasicFileAttributes> entries;
+
+    /**
+     * Modification time of directory before it was listed, 0 if unknown.
+     */
+    private final transient long modified;
+
+    /**
+     * Ctor.
+     *
+     * @param cdir Directory.
+     * @param centries Attributes of entries by name.
+     */
+    Listing(final Path cdir, final Map<String, BasicFileAttributes> centries) {
+        this(cdir, centries, 0L);
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param cdir Directory.
+     * @param centries Attributes of entries by name.
+     * @param cmodified Modification time of directory before it was listed.
+     */
+    Listing(final Path cdir, final Map<String, BasicFileAttributes> centries,
+        final long cmodified) {
+        this.dir = cdir;
+        this.entries = centries;
+        this.modified = cmodified;
+    }
+
+    /**
+     * List directory. Listing of directory that cannot be read is empty.
+     *
+     * @param dir Directory.
+     * @return Listing.
+     */
+    public static Listing of(final Path dir) {
+        return Listing.of(dir, 0L, Metrics.DISABLED);
+    }
+
+    /**
+     * List directory. Listing of directory that cannot be read is empty.
+     *
+     * @param dir Directory.
+     * @param modified Modification time of directory before listing.
+     * @param metrics Metrics of the run.
+     * @return Listing.
+     */
+    public static Listing of(final Path dir, final long modified,
+        final Metrics metrics) {
+        Map<String, BasicFileAttributes> entries = Collections.emptyMap();
+        metrics.increment(Metrics.Counter.READDIRS);
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+            entries = new LinkedHashMap<>(0);
+            for (final Path entry : stream) {
+                Listing.read(entry, entries, metrics);
+            }
+        } catch (final IOException exc) {
+            Logger.debug(Listing.class, "Unable to list %s: %s", dir, exc);
+        }
+        return new Listing(dir, entries, modified);
+    }
+
+    /**
+     * Directory.
+     *
+     * @return Path.
+     */
+    public Path path() {
+        return this.dir;
+    }
+
+    /**
+     * Modification time of directory before it was listed.
+     *
+     * @return Time in milliseconds, 0 if unknown.
+     */
+    public long modified() {
+        return this.modified;
+    }
+
+    /**
+     * Check if directory contains entry.
+     *
+     * @param name Name of the entry.
+     * @return True if entry exists.
+     */
+    public boolean contains(final String name) {
+        return this.entries.containsKey(name);
+    }
+
+    /**
+     * Names of all entries.
+     *
+     * @return Names.
+     */
+    public Set<String> names() {
+        return Collections.unmodifiableSet(this.entries.keySet());
+    }
+
+    /**
+     * Number of entries.
+     *
+     * @return Size.
+     */
+    public int size() {
+        return this.entries.size();
+    }
+
+    /**
+     * Execute closure for every entry.
+     *
+     * @param closure Closure.
+     */
+    public void forEach(final BiConsumer<Path, BasicFileAttributes> closure) {
+        this.entries.forEach(
+            (name, attrs) -> closure.accept(this.dir.resolve(name), attrs)
+        );
+    }
+
+    /**
+     * Read attributes of the entry, entries that disappeared or cannot be
+     * read are skipped.
+     *
+     * @param entry Entry.
+     * @param entries Attributes of entries by name.
+     * @param metrics Metrics of the run.
+     */
+    private static void read(final Path entry,
+        final Map<String, BasicFileAttributes> entries,
+        final Metrics metrics) {
+        metrics.increment(Metrics.Counter.STATS);
+        try {
+            entries.put(
+                entry.getFileName().toString(),
+                Files.readAttributes(
+                    entry, BasicFileAttributes.class,
+                    LinkOption.NOFOLLOW_LINKS
+                )
+            );
+        } catch (final IOException exc) {
+            Logger.debug(Listing.class, "Unable to visit %s: %s", entry, exc);
+        }
+    }
+}
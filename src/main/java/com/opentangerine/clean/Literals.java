@@ -0,0 +1,242 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 opentangerine.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.opentangerine.clean;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+
+/**
+ * Replacement of many literals at once. Literals are compiled into
+ * Aho-Corasick automaton, so all of them are found in a single scan of
+ * the text, no matter how many there are. Leftmost match wins, the
+ * longest one if many start at the same place, and replaced text is never
+ * scanned again. Text without any literal is returned as it is.
+ *
+ * @author Grzegorz Gajos (grzegorz.gajos@opentangerine.com)
+ * @version $Id$
+ * @since 1.1
+ */
+final class Literals {
+
+    /**
+     * Sorted characters of transitions of every state.
+     */
+    private final transient char[][] keys;
+
+    /**
+     * Targets of transitions of every state, in order of keys.
+     */
+    private final transient int[][] targets;
+
+    /**
+     * Failure link of every state.
+     */
+    private final transient int[] failures;
+
+    /**
+     * Depth of every state, length of its prefix.
+     */
+    private final transient int[] depths;
+
+    /**
+     * State of the longest literal ending at every state, -1 if none.
+     */
+    private final transient int[] terminals;
+
+    /**
+     * Replacement of every state, null if state does not end literal.
+     */
+    private final transient String[] values;
+
+    /**
+     * Ctor.
+     *
+     * @param replacements Values of literals.
+     */
+    Literals(final Map<String, String> replacements) {
+        final List<TreeMap<Character, Integer>> trie = new ArrayList<>(1);
+        final List<String> ends = new ArrayList<>(1);
+        final List<Integer> depth = new ArrayList<>(1);
+        trie.add(new TreeMap<>());
+        ends.add(null);
+        depth.add(0);
+        for (final Map.Entry<String, String> entry
+            : replacements.entrySet()) {
+            final String literal = entry.getKey();
+            if (literal.isEmpty()) {
+                throw new IllegalArgumentException("Empty literal");
+            }
+            int state = 0;
+            for (int pos = 0; pos < literal.length(); ++pos) {
+                Integer next = trie.get(state).get(literal.charAt(pos));
+                if (next == null) {
+                    next = trie.size();
+                    trie.get(state).put(literal.charAt(pos), next);
+                    trie.add(new TreeMap<>());
+                    ends.add(null);
+                    depth.add(pos + 1);
+                }
+                state = next;
+            }
+            ends.set(state, entry.getValue());
+        }
+        final int size = trie.size();
+        this.keys = new char[size][];
+        this.targets = new int[size][];
+        this.depths = new int[size];
+        this.values = ends.toArray(new String[size]);
+        for (int state = 0; state < size; ++state) {
+            final TreeMap<Character, Integer> edges = trie.get(state);
+            this.keys[state] = new char[edges.size()];
+            this.targets[state] = new int[edges.size()];
+            int idx = 0;
+            for (final Map.Entry<Character, Integer> edge
+                : edges.entrySet()) {
+                this.keys[state][idx] = edge.getKey();
+                this.targets[state][idx] = edge.getValue();
+                ++idx;
+            }
+            this.depths[state] = depth.get(state);
+        }
+        this.failures = new int[size];
+        this.terminals = new int[size];
+        this.link();
+    }
+
+    /**
+     * Replace all literals in text.
+     *
+     * @param text Text.
+     * @return Text with literals replaced, the same instance if there was
+     *  nothing to replace.
+     */
+    public String replace(final String text) {
+        StringBuilder out = null;
+        int copied = 0;
+        int state = 0;
+        int start = -1;
+        int match = 0;
+        int pos = 0;
+        while (pos < text.length() || start >= 0) {
+            if (pos < text.length()) {
+                state = this.next(state, text.charAt(pos));
+                ++pos;
+                final int found = this.terminals[state];
+                if (found >= 0) {
+                    final int begin = pos - this.depths[found];
+                    if (start < 0 || begin <= start) {
+                        start = begin;
+                        match = found;
+                    }
+                }
+            }
+            if (start >= 0 && (pos == text.length()
+                || pos - this.depths[state] > start)) {
+                if (out == null) {
+                    out = new StringBuilder(text.length());
+                }
+                out.append(text, copied, start);
+                out.append(this.values[match]);
+                copied = start + this.depths[match];
+                pos = copied;
+                state = 0;
+                start = -1;
+            }
+        }
+        final String result;
+        if (out == null) {
+            result = text;
+        } else {
+            result = out.append(text, copied, text.length()).toString();
+        }
+        return result;
+    }
+
+    /**
+     * Compute failure links and terminals, breadth first.
+     */
+    private void link() {
+        final Queue<Integer> queue = new ArrayDeque<>(this.depths.length);
+        this.terminals[0] = -1;
+        queue.add(0);
+        while (!queue.isEmpty()) {
+            final int state = queue.poll();
+            for (int idx = 0; idx < this.keys[state].length; ++idx) {
+                final int child = this.targets[state][idx];
+                if (state == 0) {
+                    this.failures[child] = 0;
+                } else {
+                    this.failures[child] = this.next(
+                        this.failures[state], this.keys[state][idx]
+                    );
+                }
+                if (this.values[child] == null) {
+                    this.terminals[child] =
+                        this.terminals[this.failures[child]];
+                } else {
+                    this.terminals[child] = child;
+                }
+                queue.add(child);
+            }
+        }
+    }
+
+    /**
+     * Next state of automaton, following failure links.
+     *
+     * @param from Current state.
+     * @param chr Character.
+     * @return Next state.
+     */
+    private int next(final int from, final char chr) {
+        int state = from;
+        int target = this.edge(state, chr);
+        while (target < 0 && state != 0) {
+            state = this.failures[state];
+            target = this.edge(state, chr);
+        }
+        return Math.max(target, 0);
+    }
+
+    /**
+     * Transition of the trie.
+     *
+     * @param state State.
+     * @param chr Character.
+     * @return Target state or -1 if there is no such transition.
+     */
+    private int edge(final int state, final char chr) {
+        final int idx = Arrays.binarySearch(this.keys[state], chr);
+        int target = -1;
+        if (idx >= 0) {
+            target = this.targets[state][idx];
+        }
+        return target;
+    }
+}
@@ -0,0 +1,114 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 opentangerine.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.opentangerine.clean;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Marker of the project, i.e. file that has to exist in the directory,
+ * optionally with specific content. Marker is checked against
+ * {@link Listing} of the directory, so only the content probe, if any,
+ * touches the file system.
+ *
+ * @author Grzegorz Gajos (grzegorz.gajos@opentangerine.com)
+ * @version $Id$
+ * @since 1.1
+ */
+final class Marker implements Function<Path, Boolean> {
+
+    /**
+     * Name of the file.
+     */
+    private final transient String file;
+
+    /**
+     * Probe of the content.
+     */
+    private final transient Optional<Probe> probe;
+
+    /**
+     * Ctor.
+     *
+     * @param name Name of the file.
+     */
+    Marker(final String name) {
+        this(name, Optional.empty());
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param name Name of the file.
+     * @param cprobe Probe of the content.
+     */
+    Marker(final String name, final Optional<Probe> cprobe) {
+        this.file = name;
+        this.probe = cprobe;
+    }
+
+    /**
+     * Name of the file.
+     *
+     * @return Name.
+     */
+    public String name() {
+        return this.file;
+    }
+
+    /**
+     * Check if listed directory contains the marker.
+     *
+     * @param listing Listing of the directory.
+     * @return True if marker has been found.
+     */
+    public boolean test(final Listing listing) {
+        return listing.contains(this.file)
+            && this.content(listing.path().resolve(this.file));
+    }
+
+    /**
+     * Check if directory contains the marker, without listing it.
+     *
+     * @param path Directory.
+     * @return True if marker has been found.
+     */
+    @Override
+    public Boolean apply(final Path path) {
+        final Path target = path.resolve(this.file);
+        return Files.exists(target) && this.content(target);
+    }
+
+    /**
+     * Check content of existing file.
+     *
+     * @param target File.
+     * @return True if content matches or there is nothing to check.
+     */
+    private boolean content(final Path target) {
+        return this.probe.map(it -> it.test(target)).orElse(true);
+    }
+}
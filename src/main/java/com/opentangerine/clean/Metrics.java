@@ -0,0 +1,552 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 opentangerine.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.opentangerine.clean;
+
+import com.jcabi.log.Logger;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metrics of hot paths of single run. Metrics are created from the mode,
+ * owned by the run and passed down to everything that updates them, the
+ * same way as {@link Summary}, so runs never see each other's values.
+ * They are cheap enough to stay on hot paths: counters are
+ * {@link LongAdder}s and the clock is read only if metrics are enabled.
+ *
+ * <p>Metrics are collected only when run with --metrics argument and
+ * exported when it finishes, see {@link #export()}: printed to the log,
+ * or written to a file in JSON or Prometheus text format, depending on
+ * extension of the file.
+ *
+ * @author Grzegorz Gajos (grzegorz.gajos@opentangerine.com)
+ * @version $Id$
+ * @since 1.1
+ */
+final class Metrics {
+
+    /**
+     * Metrics that are never collected, nor exported.
+     */
+    public static final Metrics DISABLED = new Metrics(Optional.empty());
+
+    /**
+     * Where to export metrics, empty string for the log, empty if metrics
+     * are disabled.
+     */
+    private final transient Optional<String> target;
+
+    /**
+     * Are metrics enabled.
+     */
+    private final transient boolean enabled;
+
+    /**
+     * Values of counters, by ordinal of the counter.
+     */
+    private final transient LongAdder[] counters;
+
+    /**
+     * Timers of phases, by ordinal of the phase.
+     */
+    private final transient Metrics.Timer[] phases;
+
+    /**
+     * Timers of matchers of every type.
+     */
+    private final transient Map<Wipe.Type, Metrics.Timer> matchers;
+
+    /**
+     * Ctor.
+     *
+     * @param mode Mode, metrics are enabled by --metrics argument.
+     */
+    Metrics(final Mode mode) {
+        this(mode.metrics());
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param ctarget Where to export metrics, empty if they are disabled.
+     */
+    private Metrics(final Optional<String> ctarget) {
+        this.target = ctarget;
+        this.enabled = ctarget.isPresent();
+        this.counters = new LongAdder[Metrics.Counter.values().length];
+        for (int idx = 0; idx < this.counters.length; ++idx) {
+            this.counters[idx] = new LongAdder();
+        }
+        this.phases = new Metrics.Timer[Metrics.Phase.values().length];
+        for (int idx = 0; idx < this.phases.length; ++idx) {
+            this.phases[idx] = new Metrics.Timer();
+        }
+        this.matchers = new EnumMap<>(Wipe.Type.class);
+        for (final Wipe.Type type : Wipe.Type.values()) {
+            this.matchers.put(type, new Metrics.Timer());
+        }
+    }
+
+    /**
+     * Current time for timers, if metrics are enabled.
+     *
+     * @return Time in nanoseconds, 0 if metrics are disabled.
+     */
+    public long clock() {
+        long now = 0L;
+        if (this.enabled) {
+            now = System.nanoTime();
+        }
+        return now;
+    }
+
+    /**
+     * Increment counter.
+     *
+     * @param counter Counter.
+     */
+    public void increment(final Metrics.Counter counter) {
+        if (this.enabled) {
+            this.counters[counter.ordinal()].increment();
+        }
+    }
+
+    /**
+     * Add to counter.
+     *
+     * @param counter Counter.
+     * @param value Value.
+     */
+    public void add(final Metrics.Counter counter, final long value) {
+        if (this.enabled) {
+            this.counters[counter.ordinal()].add(value);
+        }
+    }
+
+    /**
+     * Value of counter.
+     *
+     * @param counter Counter.
+     * @return Value.
+     */
+    public long sum(final Metrics.Counter counter) {
+        return this.counters[counter.ordinal()].sum();
+    }
+
+    /**
+     * Record time of the phase elapsed since given time.
+     *
+     * @param phase Phase.
+     * @param start Time returned by {@link #clock()}.
+     */
+    public void stop(final Metrics.Phase phase, final long start) {
+        if (this.enabled) {
+            this.phases[phase.ordinal()].add(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Record time of the phase measured in many parts.
+     *
+     * @param phase Phase.
+     * @param nanos Duration in nanoseconds.
+     */
+    public void add(final Metrics.Phase phase, final long nanos) {
+        if (this.enabled) {
+            this.phases[phase.ordinal()].add(nanos);
+        }
+    }
+
+    /**
+     * Record time of matcher of given type elapsed since given time.
+     *
+     * @param type Type.
+     * @param start Time returned by {@link #clock()}.
+     */
+    public void stop(final Wipe.Type type, final long start) {
+        if (this.enabled) {
+            this.matchers.get(type).add(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Export metrics, if they are enabled.
+     */
+    public void export() {
+        if (this.target.isPresent()) {
+            if (this.target.get().isEmpty()) {
+                this.log();
+            } else {
+                this.write(Paths.get(this.target.get()));
+            }
+        }
+    }
+
+    /**
+     * Metrics in JSON format.
+     *
+     * @return JSON.
+     */
+    public String json() {
+        final StringBuilder out = new StringBuilder("{\"counters\":{");
+        String sep = "";
+        for (final Metrics.Counter counter : Metrics.Counter.values()) {
+            out.append(sep).append('"').append(counter.label)
+                .append("\":").append(this.sum(counter));
+            sep = ",";
+        }
+        out.append("},\"timers\":{");
+        sep = "";
+        for (final Map.Entry<String, Metrics.Timer> timer
+            : this.timers().entrySet()) {
+            out.append(sep).append('"').append(timer.getKey())
+                .append("\":");
+            timer.getValue().json(out);
+            sep = ",";
+        }
+        return out.append("}}\n").toString();
+    }
+
+    /**
+     * Metrics in Prometheus text format.
+     *
+     * @return Text.
+     */
+    public String prometheus() {
+        final StringBuilder out = new StringBuilder(0);
+        for (final Metrics.Counter counter : Metrics.Counter.values()) {
+            final String name = String.format("ot_clean_%s", counter.label);
+            out.append(String.format("# HELP %s %s.\n", name, counter.help))
+                .append(String.format("# TYPE %s counter\n", name))
+                .append(String.format("%s %d\n", name, this.sum(counter)));
+        }
+        out.append("# HELP ot_clean_seconds Time spent in phase.\n")
+            .append("# TYPE ot_clean_seconds histogram\n");
+        for (final Map.Entry<String, Metrics.Timer> timer
+            : this.timers().entrySet()) {
+            timer.getValue().prometheus(timer.getKey(), out);
+        }
+        return out.toString();
+    }
+
+    /**
+     * All timers by label.
+     *
+     * @return Timers.
+     */
+    private Map<String, Metrics.Timer> timers() {
+        final Map<String, Metrics.Timer> timers = new LinkedHashMap<>(
+            this.phases.length + this.matchers.size()
+        );
+        for (final Metrics.Phase phase : Metrics.Phase.values()) {
+            timers.put(phase.label, this.phases[phase.ordinal()]);
+        }
+        for (final Map.Entry<Wipe.Type, Metrics.Timer> matcher
+            : this.matchers.entrySet()) {
+            timers.put(
+                String.format(
+                    "match_%s",
+                    matcher.getKey().name().toLowerCase(Locale.ENGLISH)
+                ),
+                matcher.getValue()
+            );
+        }
+        return timers;
+    }
+
+    /**
+     * Print metrics to the log.
+     */
+    private void log() {
+        for (final Metrics.Counter counter : Metrics.Counter.values()) {
+            Logger.info(
+                Metrics.class, "%s: %d", counter.help, this.sum(counter)
+            );
+        }
+        for (final Map.Entry<String, Metrics.Timer> timer
+            : this.timers().entrySet()) {
+            Logger.info(
+                Metrics.class, "%s: %d call(s) in %[nano]s",
+                timer.getKey(),
+                timer.getValue().count.sum(),
+                timer.getValue().total.sum()
+            );
+        }
+    }
+
+    /**
+     * Write metrics to the file, replacing it at once.
+     *
+     * @param file File, JSON if it has .json extension, Prometheus text
+     *  otherwise.
+     */
+    private void write(final Path file) {
+        final String text;
+        if (file.toString().endsWith(".json")) {
+            text = this.json();
+        } else {
+            text = this.prometheus();
+        }
+        final Path temp = file.resolveSibling(
+            String.format("%s.tmp", file.getFileName())
+        );
+        try {
+            Files.write(temp, text.getBytes(StandardCharsets.UTF_8));
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (final IOException exc) {
+            Logger.warn(
+                Metrics.class, "Unable to write metrics to %s: %s", file, exc
+            );
+        }
+    }
+
+    /**
+     * Counters.
+     */
+    enum Counter {
+        /**
+         * Directories visited by the crawler.
+         */
+        DIRECTORIES("directories_visited_total", "Directories visited"),
+
+        /**
+         * Directories listed.
+         */
+        READDIRS("readdir_calls_total", "Directories listed"),
+
+        /**
+         * Attributes of files and directories read.
+         */
+        STATS("stat_calls_total", "Attributes of entries read"),
+
+        /**
+         * Bytes measured.
+         */
+        SIZED("sized_bytes_total", "Bytes measured"),
+
+        /**
+         * Bytes deleted.
+         */
+        DELETED("deleted_bytes_total", "Bytes deleted");
+
+        /**
+         * Label.
+         */
+        private final transient String label;
+
+        /**
+         * Description.
+         */
+        private final transient String help;
+
+        /**
+         * Ctor.
+         * @param clabel Label.
+         * @param chelp Description.
+         */
+        Counter(final String clabel, final String chelp) {
+            this.label = clabel;
+            this.help = chelp;
+        }
+    }
+
+    /**
+     * Timed phases, other than matchers.
+     */
+    enum Phase {
+        /**
+         * Scans of patterns, see {@link Scan}.
+         */
+        SCAN("scan"),
+
+        /**
+         * Deletion of matched paths, or moving them to trash, in delete
+         * stage of {@link Delete}.
+         */
+        DELETE("delete_file"),
+
+        /**
+         * Parsing of .clean.yml files.
+         */
+        YAML("yaml_parse");
+
+        /**
+         * Label.
+         */
+        private final transient String label;
+
+        /**
+         * Ctor.
+         * @param clabel Label.
+         */
+        Phase(final String clabel) {
+            this.label = clabel;
+        }
+    }
+
+    /**
+     * Histogram of durations, with power of two buckets of nanoseconds.
+     */
+    static final class Timer {
+
+        /**
+         * Number of buckets, the last one is unbounded.
+         */
+        private static final int BUCKETS = 40;
+
+        /**
+         * Number of durations in every bucket.
+         */
+        private final transient LongAdder[] buckets;
+
+        /**
+         * Number of durations.
+         */
+        private final transient LongAdder count;
+
+        /**
+         * Total duration in nanoseconds.
+         */
+        private final transient LongAdder total;
+
+        /**
+         * Ctor.
+         */
+        Timer() {
+            this.buckets = new LongAdder[Metrics.Timer.BUCKETS];
+            for (int idx = 0; idx < this.buckets.length; ++idx) {
+                this.buckets[idx] = new LongAdder();
+            }
+            this.count = new LongAdder();
+            this.total = new LongAdder();
+        }
+
+        /**
+         * Record duration.
+         *
+         * @param duration Duration in nanoseconds.
+         */
+        public void add(final long duration) {
+            final long nanos = Math.max(0L, duration);
+            this.buckets[
+                Math.min(
+                    Metrics.Timer.BUCKETS - 1,
+                    Long.SIZE - Long.numberOfLeadingZeros(nanos)
+                )
+            ].increment();
+            this.count.increment();
+            this.total.add(nanos);
+        }
+
+        /**
+         * Number of recorded durations.
+         *
+         * @return Count.
+         */
+        public long count() {
+            return this.count.sum();
+        }
+
+        /**
+         * Append timer in JSON format, buckets are keyed by upper bound in
+         * nanoseconds.
+         *
+         * @param out Output.
+         */
+        private void json(final StringBuilder out) {
+            out.append("{\"count\":").append(this.count.sum())
+                .append(",\"sum_ns\":").append(this.total.sum())
+                .append(",\"buckets\":{");
+            String sep = "";
+            for (int idx = 0; idx < this.buckets.length; ++idx) {
+                final long value = this.buckets[idx].sum();
+                if (value > 0L) {
+                    out.append(sep).append('"');
+                    if (idx == this.buckets.length - 1) {
+                        out.append("inf");
+                    } else {
+                        out.append(Timer.bound(idx));
+                    }
+                    out.append("\":").append(value);
+                    sep = ",";
+                }
+            }
+            out.append("}}");
+        }
+
+        /**
+         * Append timer in Prometheus text format, as cumulative buckets.
+         *
+         * @param phase Label of phase.
+         * @param out Output.
+         */
+        private void prometheus(final String phase, final StringBuilder out) {
+            long cumulative = 0L;
+            for (int idx = 0; idx < this.buckets.length - 1; ++idx) {
+                cumulative += this.buckets[idx].sum();
+                out.append(
+                    String.format(
+                        "ot_clean_seconds_bucket{phase=\"%s\",le=\"%s\"} %d\n",
+                        phase, Timer.bound(idx) / 1.0e9, cumulative
+                    )
+                );
+            }
+            out.append(
+                String.format(
+                    "ot_clean_seconds_bucket{phase=\"%s\",le=\"+Inf\"} %d\n",
+                    phase, this.count.sum()
+                )
+            ).append(
+                String.format(
+                    "ot_clean_seconds_sum{phase=\"%s\"} %s\n",
+                    phase, this.total.sum() / 1.0e9
+                )
+            ).append(
+                String.format(
+                    "ot_clean_seconds_count{phase=\"%s\"} %d\n",
+                    phase, this.count.sum()
+                )
+            );
+        }
+
+        /**
+         * Upper bound of bucket.
+         *
+         * @param idx Index of bucket.
+         * @return Nanoseconds.
+         */
+        private static long bound(final int idx) {
+            return (1L << idx) - 1L;
+        }
+    }
+}
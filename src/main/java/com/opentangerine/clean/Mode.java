@@ -23,6 +23,11 @@
  */
 package com.opentangerine.clean;
 
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import org.apache.commons.lang3.StringUtils;
 
 /**
@@ -34,6 +39,11 @@ import org.apache.commons.lang3.StringUtils;
  */
 @SuppressWarnings("PMD.BooleanInversion")
 public final class Mode {
+    /**
+     * Default number of blocking units of work in flight.
+     */
+    private static final int INFLIGHT = 256;
+
     /**
      * Readonly flag.
      */
@@ -56,6 +66,14 @@ public final class Mode {
         return !Arg.D.within(this.arguments);
     }
 
+    /**
+     * Trash mode, matches are moved aside and deleted in background.
+     * @return True if in delete mode and trash should be used
+     */
+    public boolean trash() {
+        return !this.readonly() && Arg.T.within(this.arguments);
+    }
+
     /**
      * Verbose mode.
      * @return True if verbose mode.
@@ -63,6 +81,76 @@ public final class Mode {
     public boolean verbose()  {
         return Arg.V.within(this.arguments);
     }
+
+    /**
+     * Incremental mode, results of previous runs are kept in the index
+     * and reused for directories that have not changed.
+     * @return True if index should be used.
+     */
+    public boolean incremental() {
+        return Arg.I.within(this.arguments);
+    }
+
+    /**
+     * Metrics requested by --metrics or --metrics=FILE argument.
+     * @return Empty if metrics are not requested, empty string if they
+     *  should be printed to the log, otherwise file they should be
+     *  written to
+     */
+    public Optional<String> metrics() {
+        return Arg.METRICS.value(this.arguments);
+    }
+
+    /**
+     * Silent mode, found paths are not printed, only the summary.
+     * @return True if --silent argument is given.
+     */
+    public boolean silent() {
+        return Arg.SILENT.within(this.arguments);
+    }
+
+    /**
+     * File requested by --ndjson=FILE argument, where found paths should
+     * be written as newline delimited JSON.
+     * @return File, empty if not requested.
+     */
+    public Optional<Path> ndjson() {
+        return Arg.NDJSON.value(this.arguments)
+            .filter(file -> !file.isEmpty())
+            .map(Paths::get);
+    }
+
+    /**
+     * Number of threads used for crawling and cleaning.
+     * @return Number of workers, 1 if parallel mode is disabled
+     */
+    public int workers() {
+        int workers = 1;
+        if (Arg.P.within(this.arguments)) {
+            workers = Math.max(
+                1,
+                Arg.P.number(
+                    Runtime.getRuntime().availableProcessors(),
+                    this.arguments
+                )
+            );
+        }
+        return workers;
+    }
+
+    /**
+     * Maximum number of directories processed at once in parallel mode,
+     * while some of the workers are blocked by the filesystem.
+     * @return Number of directories, 0 if workers should never be exceeded
+     */
+    public int inflight() {
+        int inflight = 0;
+        if (Arg.L.within(this.arguments)) {
+            inflight = Arg.L.number(Mode.INFLIGHT, this.arguments);
+        }
+        return inflight;
+    }
+
     /**
      * Enumeration of allowed program arguments.
      */
@@ -75,7 +163,50 @@ public final class Mode {
         /**
          * Switch to verbose mode.
          */
-        V("v");
+        V("v"),
+
+        /**
+         * Switch to parallel mode, optionally followed by number of workers.
+         */
+        P("p"),
+
+        /**
+         * Limit of blocking units of work in flight, in parallel mode.
+         */
+        L("l"),
+
+        /**
+         * Move matches to trash and delete them in background, in delete
+         * mode only.
+         */
+        T("t"),
+
+        /**
+         * Keep index of crawled directories and reuse it in next runs.
+         */
+        I("i"),
+
+        /**
+         * Collect metrics and print them or write them to a file, long
+         * option with optional value.
+         */
+        METRICS("metrics"),
+
+        /**
+         * Do not print found paths, only the summary, long option.
+         */
+        SILENT("silent"),
+
+        /**
+         * Write found paths to a file as newline delimited JSON, long
+         * option with value.
+         */
+        NDJSON("ndjson");
+
+        /**
+         * Prefix of long options, they are never mixed with short ones.
+         */
+        private static final String LONG = "--";
 
         /**
          * Label.
@@ -96,18 +227,64 @@ public final class Mode {
          * @return True if exists.
          */
         public boolean within(final String... args) {
-            return Arg.concat(args).contains(this.label);
+            final boolean found;
+            if (this.label.length() > 1) {
+                found = this.value(args).isPresent();
+            } else {
+                found = Arg.concat(args).contains(this.label);
+            }
+            return found;
         }
 
         /**
-         * Combine all arguments and remove dash.
+         * Value of long option, given as --label or --label=value.
+         * @param args Args list.
+         * @return Value, empty string if option has no value, empty if
+         *  there is no such option.
+         */
+        public Optional<String> value(final String... args) {
+            final String option = StringUtils.join(Arg.LONG, this.label);
+            Optional<String> result = Optional.empty();
+            for (final String arg : args) {
+                if (arg.equals(option)) {
+                    result = Optional.of("");
+                } else if (arg.startsWith(StringUtils.join(option, "="))) {
+                    result = Optional.of(arg.substring(option.length() + 1));
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Number that follows label in args list.
+         * @param def Default value if label is not followed by number.
+         * @param args Args list.
+         * @return Number.
+         */
+        public int number(final int def, final String... args) {
+            final Matcher matcher = Pattern
+                .compile(String.format("%s(\\d+)", this.label))
+                .matcher(Arg.concat(args));
+            int result = def;
+            if (matcher.find()) {
+                result = Integer.parseInt(matcher.group(1));
+            }
+            return result;
+        }
+
+        /**
+         * Combine all short arguments and remove dash.
          * @param args Args list.
          * @return Arguments as plain string.
          */
         private static String concat(final String... args) {
-            return StringUtils.replaceChars(
-                StringUtils.join(args), "- ", ""
-            );
+            final StringBuilder out = new StringBuilder(0);
+            for (final String arg : args) {
+                if (!arg.startsWith(Arg.LONG)) {
+                    out.append(arg);
+                }
+            }
+            return StringUtils.replaceChars(out.toString(), "- ", "");
         }
     }
 }
@@ -0,0 +1,379 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 opentangerine.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.opentangerine.clean;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Pipeline of stages joined by bounded queues. Every stage runs on its own
+ * threads, takes items from its queue and hands the result over to the
+ * next stage. When a queue is full, stage feeding it waits, so number of
+ * items in flight, and memory, stays bounded.
+ *
+ * <p>Pipeline without threads executes all stages directly in the thread
+ * that submits the item.
+ *
+ * <p>Item which makes the stage fail is dropped and the remaining items
+ * keep flowing. First failure is thrown from {@link #finish()}, after all
+ * items passed the pipeline.
+ *
+ * @author Grzegorz Gajos (grzegorz.gajos@opentangerine.com)
+ * @version $Id$
+ * @since 1.1
+ * @param <T> Type of the items.
+ */
+final class Pipeline<T> {
+
+    /**
+     * Stages.
+     */
+    private final transient List<Pipeline.Stage<T>> stages;
+
+    /**
+     * Capacity of queues.
+     */
+    private final transient int capacity;
+
+    /**
+     * Are stages running on their own threads.
+     */
+    private final transient boolean threaded;
+
+    /**
+     * Queue of the first stage, empty until pipeline is started.
+     */
+    private transient Optional<BlockingQueue<Optional<T>>> head;
+
+    /**
+     * Threads of all stages.
+     */
+    private final transient Collection<Thread> threads;
+
+    /**
+     * First failure of any stage, if any.
+     */
+    private final transient AtomicReference<Throwable> failure;
+
+    /**
+     * Ctor.
+     *
+     * @param ccapacity Capacity of every queue, 0 to run stages directly.
+     */
+    Pipeline(final int ccapacity) {
+        this.stages = new ArrayList<>(0);
+        this.capacity = ccapacity;
+        this.threaded = ccapacity > 0;
+        this.head = Optional.empty();
+        this.threads = new ArrayList<>(0);
+        this.failure = new AtomicReference<>();
+    }
+
+    /**
+     * Add next stage.
+     *
+     * @param name Name of the stage.
+     * @param workers Number of threads.
+     * @param action Action, returns empty if item should be dropped.
+     * @return This pipeline.
+     */
+    public Pipeline<T> stage(final String name, final int workers,
+        final Function<T, Optional<T>> action) {
+        this.stages.add(
+            new Pipeline.Stage<>(name, workers, action, this.failure)
+        );
+        return this;
+    }
+
+    /**
+     * Submit item to the first stage, waiting if its queue is full.
+     *
+     * @param item Item.
+     */
+    public void submit(final T item) {
+        if (this.threaded) {
+            Pipeline.put(this.start(), Optional.of(item));
+        } else {
+            Optional<T> result = Optional.of(item);
+            for (final Pipeline.Stage<T> stage : this.stages) {
+                result = result.flatMap(stage::apply);
+            }
+        }
+    }
+
+    /**
+     * Wait until all submitted items pass all stages. Pipeline can be
+     * used again afterwards.
+     *
+     * @throws IllegalStateException If any of the stages failed.
+     */
+    public void finish() {
+        final Optional<BlockingQueue<Optional<T>>> queue;
+        synchronized (this) {
+            queue = this.head;
+            this.head = Optional.empty();
+        }
+        if (queue.isPresent()) {
+            Pipeline.put(queue.get(), Optional.empty());
+            for (final Thread thread : this.threads) {
+                try {
+                    thread.join();
+                } catch (final InterruptedException exc) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted", exc);
+                }
+            }
+            this.threads.clear();
+        }
+        final Throwable failed = this.failure.getAndSet(null);
+        if (failed instanceof Error) {
+            throw (Error) failed;
+        }
+        if (failed instanceof RuntimeException) {
+            throw (RuntimeException) failed;
+        }
+    }
+
+    /**
+     * Start threads of all stages, unless they are already running.
+     *
+     * @return Queue of the first stage.
+     */
+    private synchronized BlockingQueue<Optional<T>> start() {
+        if (!this.head.isPresent()) {
+            Optional<BlockingQueue<Optional<T>>> next = Optional.empty();
+            for (int idx = this.stages.size() - 1; idx >= 0; --idx) {
+                final BlockingQueue<Optional<T>> input =
+                    new ArrayBlockingQueue<>(this.capacity);
+                this.threads.addAll(
+                    this.stages.get(idx).start(input, next)
+                );
+                next = Optional.of(input);
+            }
+            this.head = next;
+        }
+        return this.head.get();
+    }
+
+    /**
+     * Put element into the queue, waiting for space if necessary.
+     *
+     * @param queue Queue.
+     * @param element Element, empty one marks end of the items.
+     * @param <T> Type of the items.
+     */
+    private static <T> void put(final BlockingQueue<Optional<T>> queue,
+        final Optional<T> element) {
+        try {
+            queue.put(element);
+        } catch (final InterruptedException exc) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted", exc);
+        }
+    }
+
+    /**
+     * Single stage of the pipeline.
+     *
+     * @param <T> Type of the items.
+     */
+    private static final class Stage<T> {
+
+        /**
+         * Name.
+         */
+        private final transient String name;
+
+        /**
+         * Number of threads.
+         */
+        private final transient int workers;
+
+        /**
+         * Action.
+         */
+        private final transient Function<T, Optional<T>> action;
+
+        /**
+         * First failure of the pipeline.
+         */
+        private final transient AtomicReference<Throwable> failure;
+
+        /**
+         * Ctor.
+         *
+         * @param cname Name.
+         * @param cworkers Number of threads.
+         * @param caction Action.
+         * @param cfailure First failure of the pipeline.
+         * @checkstyle ParameterNumberCheck (4 lines)
+         */
+        Stage(final String cname, final int cworkers,
+            final Function<T, Optional<T>> caction,
+            final AtomicReference<Throwable> cfailure) {
+            this.name = cname;
+            this.workers = Math.max(1, cworkers);
+            this.action = caction;
+            this.failure = cfailure;
+        }
+
+        /**
+         * Apply action on the item. If it fails, the item is dropped and
+         * the failure is kept, unless there is an earlier one.
+         *
+         * @param item Item.
+         * @return Result.
+         */
+        public Optional<T> apply(final T item) {
+            Optional<T> result = Optional.empty();
+            try {
+                result = this.action.apply(item);
+            // @checkstyle IllegalCatchCheck (1 line)
+            } catch (final Throwable exc) {
+                this.failed(exc);
+            }
+            return result;
+        }
+
+        /**
+         * Start threads of the stage.
+         *
+         * @param input Queue with items for this stage.
+         * @param output Queue of the next stage, if any.
+         * @return Started threads.
+         */
+        public Collection<Thread> start(
+            final BlockingQueue<Optional<T>> input,
+            final Optional<BlockingQueue<Optional<T>>> output) {
+            final AtomicInteger alive = new AtomicInteger(this.workers);
+            final Collection<Thread> started = new ArrayList<>(this.workers);
+            for (int idx = 0; idx < this.workers; ++idx) {
+                final Thread thread = new Thread(
+                    () -> this.consume(input, output, alive),
+                    String.format("ot-clean-%s-%d", this.name, idx)
+                );
+                thread.setDaemon(true);
+                thread.start();
+                started.add(thread);
+            }
+            return started;
+        }
+
+        /**
+         * Take items from the input queue until the end mark, apply action
+         * and pass results to the output queue. The last thread that stops
+         * passes the end mark to the output queue, even if the thread
+         * stops because of a failure.
+         *
+         * @param input Input queue.
+         * @param output Output queue, if any.
+         * @param alive Number of threads of this stage still running.
+         */
+        private void consume(final BlockingQueue<Optional<T>> input,
+            final Optional<BlockingQueue<Optional<T>>> output,
+            final AtomicInteger alive) {
+            try {
+                for (Optional<T> item = this.take(input); item.isPresent();
+                    item = this.take(input)) {
+                    final Optional<T> result = this.apply(item.get());
+                    if (result.isPresent() && output.isPresent()) {
+                        this.deliver(output.get(), result);
+                    }
+                }
+            // @checkstyle IllegalCatchCheck (1 line)
+            } catch (final Throwable exc) {
+                this.failed(exc);
+            } finally {
+                this.deliver(input, Optional.empty());
+                if (alive.decrementAndGet() == 0 && output.isPresent()) {
+                    this.deliver(output.get(), Optional.empty());
+                }
+            }
+        }
+
+        /**
+         * Take element from the queue. Threads of the stage are never
+         * stopped by interrupt, it is kept as failure and the thread goes
+         * on, so that no item or end mark is lost.
+         *
+         * @param queue Queue.
+         * @return Element.
+         */
+        private Optional<T> take(final BlockingQueue<Optional<T>> queue) {
+            Optional<T> element = null;
+            while (element == null) {
+                try {
+                    element = queue.take();
+                } catch (final InterruptedException exc) {
+                    this.failed(exc);
+                }
+            }
+            return element;
+        }
+
+        /**
+         * Put element into the queue, waiting for space even if the thread
+         * is interrupted.
+         *
+         * @param queue Queue.
+         * @param element Element, empty one marks end of the items.
+         */
+        private void deliver(final BlockingQueue<Optional<T>> queue,
+            final Optional<T> element) {
+            boolean done = false;
+            while (!done) {
+                try {
+                    queue.put(element);
+                    done = true;
+                } catch (final InterruptedException exc) {
+                    this.failed(exc);
+                }
+            }
+        }
+
+        /**
+         * Keep the failure, unless there is an earlier one.
+         *
+         * @param exc Failure.
+         */
+        private void failed(final Throwable exc) {
+            if (this.failure.get() == null) {
+                Throwable kept = exc;
+                if (!(exc instanceof Error)) {
+                    kept = new IllegalStateException(
+                        String.format("Stage %s failed", this.name), exc
+                    );
+                }
+                this.failure.compareAndSet(null, kept);
+            }
+        }
+    }
+}
@@ -0,0 +1,208 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 opentangerine.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.opentangerine.clean;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.jcabi.log.Logger;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.apache.commons.io.input.BoundedInputStream;
+
+/**
+ * Probe of file content. Checks if file contains regular expression
+ * without loading the whole file into memory.
+ *
+ * <p>Pattern is compiled once. File is read in chunks, every chunk is
+ * searched together with the next one, so any match not longer than
+ * a chunk is found, and reading stops at the first match or after the
+ * limit of bytes. Previous chunk is kept in front of the searched region
+ * and region bounds are transparent, but not anchoring, so boundaries,
+ * lookarounds and anchors not longer than a chunk behave as if the whole
+ * file was searched. Match which could be changed by the rest of the
+ * file is searched again with the next chunk. Results are cached by path
+ * and reused as long as modification time and size of the file stay
+ * the same.
+ *
+ * @author Grzegorz Gajos (grzegorz.gajos@opentangerine.com)
+ * @version $Id$
+ * @since 1.1
+ */
+final class Probe {
+
+    /**
+     * Default maximum number of bytes read from every file.
+     */
+    public static final long LIMIT = 1L << 20;
+
+    /**
+     * Number of characters in a chunk.
+     */
+    private static final int CHUNK = 8192;
+
+    /**
+     * Maximum number of cached results.
+     */
+    private static final int CACHED = 4096;
+
+    /**
+     * Pattern.
+     */
+    private final transient Pattern pattern;
+
+    /**
+     * Maximum number of bytes to read.
+     */
+    private final transient long limit;
+
+    /**
+     * Results of files already probed.
+     */
+    private final transient Cache<Path, Stamped<Boolean>> seen;
+
+    /**
+     * Ctor.
+     *
+     * @param regexp Regular expression to search for.
+     */
+    Probe(final String regexp) {
+        this(regexp, Probe.LIMIT);
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param regexp Regular expression to search for.
+     * @param climit Maximum number of bytes read from every file.
+     */
+    Probe(final String regexp, final long climit) {
+        this.pattern = Pattern.compile(regexp);
+        this.limit = climit;
+        this.seen = CacheBuilder.newBuilder()
+            .maximumSize(Probe.CACHED)
+            .build();
+    }
+
+    /**
+     * Check if file exists and contains the pattern.
+     *
+     * @param file File.
+     * @return True if pattern has been found.
+     */
+    public boolean test(final Path file) {
+        final Path key = file.toAbsolutePath().normalize();
+        boolean result = false;
+        try {
+            final BasicFileAttributes attrs = Files.readAttributes(
+                key, BasicFileAttributes.class
+            );
+            final Stamped<Boolean> cached = this.seen.getIfPresent(key);
+            if (cached != null && cached.same(attrs)) {
+                result = cached.value();
+            } else {
+                result = this.search(key);
+                this.seen.put(key, new Stamped<>(attrs, result));
+                Logger.debug(
+                    this, "File %s probed with size: %d | Regexp = %s",
+                    file, attrs.size(), result
+                );
+            }
+        } catch (final NoSuchFileException exc) {
+            Logger.debug(this, "File not found: %s", file);
+        } catch (final IOException exc) {
+            throw new IllegalStateException("Unable to read file", exc);
+        }
+        return result;
+    }
+
+    /**
+     * Search for the pattern chunk by chunk.
+     *
+     * @param file File.
+     * @return True if pattern has been found.
+     * @throws IOException If fails.
+     */
+    private boolean search(final Path file) throws IOException {
+        final char[] window = new char[Probe.CHUNK * 3];
+        final Matcher matcher = this.pattern.matcher("")
+            .useTransparentBounds(true)
+            .useAnchoringBounds(false);
+        boolean found = false;
+        try (Reader reader = new InputStreamReader(
+            new BoundedInputStream(Files.newInputStream(file), this.limit),
+            Charset.defaultCharset()
+        )) {
+            int size = 0;
+            int from = 0;
+            boolean more = true;
+            while (more && !found) {
+                final int read = Probe.fill(reader, window, size);
+                more = size + read == window.length;
+                size += read;
+                matcher.reset(CharBuffer.wrap(window, 0, size));
+                found = matcher.region(from, size).find()
+                    && !(more && matcher.requireEnd());
+                if (more) {
+                    System.arraycopy(
+                        window, Probe.CHUNK, window, 0, Probe.CHUNK << 1
+                    );
+                    size = Probe.CHUNK << 1;
+                    from = Probe.CHUNK;
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Read characters until the window is full or stream ends.
+     *
+     * @param reader Reader.
+     * @param window Window.
+     * @param offset Number of characters already in the window.
+     * @return Number of characters read.
+     * @throws IOException If fails.
+     */
+    private static int fill(final Reader reader, final char[] window,
+        final int offset) throws IOException {
+        int pos = offset;
+        while (pos < window.length) {
+            final int read = reader.read(window, pos, window.length - pos);
+            if (read < 0) {
+                break;
+            }
+            pos += read;
+        }
+        return pos - offset;
+    }
+}
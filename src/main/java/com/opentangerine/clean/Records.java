@@ -0,0 +1,704 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 opentangerine.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.opentangerine.clean;
+
+import com.jcabi.log.Logger;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Records of the index stored in memory mapped file. File is mapped as it
+ * is, in segments of {@link #SEGMENT} bytes, nothing is read at startup
+ * and nothing is allocated for records that are not looked up, so startup
+ * takes the same time and memory for any number of records.
+ *
+ * <p>Records are sorted by bytes of their paths, so a record is found by
+ * binary search over the table of offsets at the end of the file, and the
+ * index of previous run is merged with records of current run in a single
+ * pass that streams records from the mapped file to the new one. All
+ * offsets are 64 bit, so the file is not limited in size.
+ *
+ * <p>File starts with header: magic number, version, number of records
+ * and offset of table of offsets. Every record starts with number of its
+ * remaining bytes, followed by path, modification time, types and names of
+ * subdirectories. Path and every name is stored as its length followed by
+ * UTF-8 bytes. Paths are compared with records by code points decoded
+ * straight from the mapped file, so lookup allocates nothing.
+ *
+ * <p>Mapped file is never replaced, since some systems do not allow that
+ * while it is mapped. Every save writes next generation of records to
+ * a new file and then atomically replaces small index file that holds
+ * number of the current generation. Older generations are deleted when
+ * they are not mapped anymore.
+ *
+ * @author Grzegorz Gajos (grzegorz.gajos@opentangerine.com)
+ * @version $Id$
+ * @since 1.1
+ * @checkstyle MagicNumberCheck (1000 lines)
+ */
+final class Records {
+
+    /**
+     * Marker of the format.
+     */
+    private static final int MAGIC = 0x6f74636c;
+
+    /**
+     * Version of the format.
+     */
+    private static final int VERSION = 4;
+
+    /**
+     * Size of header.
+     */
+    private static final int HEADER = 24;
+
+    /**
+     * Bits of offset inside of single segment.
+     */
+    private static final int SHIFT = 30;
+
+    /**
+     * Size of mapped segment.
+     */
+    private static final long SEGMENT = 1L << Records.SHIFT;
+
+    /**
+     * Size of buffer used to copy records.
+     */
+    private static final int COPY = 8192;
+
+    /**
+     * Maximum size of index file holding number of generation.
+     */
+    private static final long POINTER = 20L;
+
+    /**
+     * Records of missing index.
+     */
+    public static final Records EMPTY =
+        new Records(new ByteBuffer[0], 0L, 0L);
+
+    /**
+     * Mapped segments of the file.
+     */
+    private final transient ByteBuffer[] segments;
+
+    /**
+     * Number of records.
+     */
+    private final transient long count;
+
+    /**
+     * Offset of table of offsets.
+     */
+    private final transient long table;
+
+    /**
+     * Generation of records.
+     */
+    private final transient long generation;
+
+    /**
+     * Ctor.
+     *
+     * @param mapped Mapped segments of the file.
+     * @param size Size of the file.
+     * @param cgeneration Generation of records.
+     */
+    private Records(final ByteBuffer[] mapped, final long size,
+        final long cgeneration) {
+        this.segments = mapped;
+        this.generation = cgeneration;
+        long records = 0L;
+        long offsets = 0L;
+        if (size >= Records.HEADER && this.integer(0L) == Records.MAGIC
+            && this.integer(4L) == Records.VERSION) {
+            records = this.number(8L);
+            offsets = this.number(16L);
+        }
+        if (records < 0L || records > size >>> 3 || offsets < Records.HEADER
+            || offsets + (records << 3) != size) {
+            records = 0L;
+            offsets = 0L;
+        }
+        this.count = records;
+        this.table = offsets;
+    }
+
+    /**
+     * Map index file.
+     *
+     * @param location Location of index file.
+     * @return Records.
+     */
+    public static Records open(final Path location) {
+        Records result = Records.EMPTY;
+        try {
+            if (Files.size(location) <= Records.POINTER) {
+                final long current = Long.parseLong(
+                    new String(
+                        Files.readAllBytes(location), StandardCharsets.UTF_8
+                    ).trim()
+                );
+                result = Records.map(Records.data(location, current), current);
+            } else {
+                Logger.debug(Records.class, "Unknown index %s", location);
+            }
+        } catch (final NoSuchFileException exc) {
+            Logger.debug(Records.class, "No index in %s", location);
+        } catch (final IOException | NumberFormatException exc) {
+            Logger.warn(Records.class, "Ignoring broken index %s", location);
+        }
+        return result;
+    }
+
+    /**
+     * Map file with records.
+     *
+     * @param file File with records.
+     * @param current Generation of records.
+     * @return Records.
+     * @throws IOException If fails.
+     */
+    private static Records map(final Path file, final long current)
+        throws IOException {
+        try (FileChannel channel = FileChannel.open(
+            file, StandardOpenOption.READ
+        )) {
+            final long size = channel.size();
+            final ByteBuffer[] mapped =
+                new ByteBuffer[(int) ((size + Records.SEGMENT - 1L)
+                    >>> Records.SHIFT)];
+            for (int idx = 0; idx < mapped.length; ++idx) {
+                final long start = (long) idx << Records.SHIFT;
+                mapped[idx] = channel.map(
+                    FileChannel.MapMode.READ_ONLY, start,
+                    Math.min(Records.SEGMENT, size - start)
+                );
+            }
+            return new Records(mapped, size, current);
+        }
+    }
+
+    /**
+     * Find record of path.
+     *
+     * @param path Absolute and normalized path.
+     * @return Number of record or -1 if path is not indexed.
+     */
+    public long find(final Path path) {
+        final String key = path.toString();
+        long low = 0L;
+        long high = this.count - 1L;
+        long result = -1L;
+        while (low <= high && result < 0L) {
+            final long mid = (low + high) >>> 1;
+            final int cmp = this.compare(this.offset(mid), key);
+            if (cmp < 0) {
+                low = mid + 1L;
+            } else if (cmp > 0) {
+                high = mid - 1L;
+            } else {
+                result = mid;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Modification time.
+     *
+     * @param id Number of record.
+     * @return Time in milliseconds, 0 if it cannot be trusted.
+     */
+    public long modified(final long id) {
+        final long pos = this.offset(id);
+        return this.number(pos + 8L + this.integer(pos + 4L));
+    }
+
+    /**
+     * Bits of types of definitions that matched directory.
+     *
+     * @param id Number of record.
+     * @return Bits.
+     */
+    public int types(final long id) {
+        final long pos = this.offset(id);
+        return this.integer(pos + 16L + this.integer(pos + 4L));
+    }
+
+    /**
+     * Names of children.
+     *
+     * @param id Number of record.
+     * @return Names.
+     */
+    public List<String> children(final long id) {
+        final long start = this.offset(id);
+        long pos = start + 20L + this.integer(start + 4L);
+        final int size = this.integer(pos);
+        pos += 4L;
+        final List<String> result = new ArrayList<>(size);
+        final StringBuilder name = new StringBuilder(0);
+        for (int child = 0; child < size; ++child) {
+            final long end = pos + 4L + this.integer(pos);
+            name.setLength(0);
+            for (long at = pos + 4L; at < end;) {
+                final int width = Records.width(this.get(at));
+                name.appendCodePoint(this.point(at, width));
+                at += width;
+            }
+            result.add(name.toString());
+            pos = end;
+        }
+        return result;
+    }
+
+    /**
+     * Write next generation of records and atomically switch index file to
+     * it. Records inside of the base directory are replaced with the
+     * current records, others are copied as they are. Nothing but the
+     * current records is kept in memory.
+     *
+     * @param location Location of index file.
+     * @param base Absolute and normalized path of the base directory.
+     * @param current Current records by absolute and normalized paths.
+     * @throws IOException If fails.
+     */
+    public void merge(final Path location, final Path base,
+        final Map<Path, Index.Record> current) throws IOException {
+        final Map<byte[], Index.Record> sorted = new TreeMap<>(
+            Records::compare
+        );
+        for (final Map.Entry<Path, Index.Record> entry : current.entrySet()) {
+            sorted.put(Records.key(entry.getKey()), entry.getValue());
+        }
+        final byte[] inside = Records.key(base);
+        String under = base.toString();
+        if (!under.endsWith(File.separator)) {
+            under = String.format("%s%s", under, File.separator);
+        }
+        final byte[] prefix = under.getBytes(StandardCharsets.UTF_8);
+        Files.createDirectories(location.toAbsolutePath().getParent());
+        final long successor = this.generation + 1L;
+        final Path offsets = location.resolveSibling(
+            String.format("%s.offsets.tmp", location.getFileName())
+        );
+        try (FileChannel channel = FileChannel.open(
+            Records.data(location, successor), StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING
+        ); FileChannel table = FileChannel.open(
+            offsets, StandardOpenOption.CREATE, StandardOpenOption.READ,
+            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.DELETE_ON_CLOSE
+        )) {
+            final DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Channels.newOutputStream(channel))
+            );
+            final DataOutputStream index = new DataOutputStream(
+                new BufferedOutputStream(Channels.newOutputStream(table))
+            );
+            out.write(new byte[Records.HEADER]);
+            long pos = Records.HEADER;
+            long written = 0L;
+            final Iterator<Map.Entry<byte[], Index.Record>> fresh =
+                sorted.entrySet().iterator();
+            Map.Entry<byte[], Index.Record> next = Records.next(fresh);
+            long old = this.outside(0L, inside, prefix);
+            while (old < this.count || next != null) {
+                int cmp = 1;
+                if (old < this.count) {
+                    cmp = -1;
+                    if (next != null) {
+                        cmp = this.compare(this.offset(old), next.getKey());
+                    }
+                }
+                index.writeLong(pos);
+                ++written;
+                if (cmp < 0) {
+                    pos += this.copy(this.offset(old), out);
+                } else {
+                    pos += Records.write(next.getKey(), next.getValue(), out);
+                    next = Records.next(fresh);
+                }
+                if (cmp <= 0) {
+                    old = this.outside(old + 1L, inside, prefix);
+                }
+            }
+            out.flush();
+            index.flush();
+            for (long done = 0L; done < table.size();) {
+                done += table.transferTo(done, table.size() - done, channel);
+            }
+            final ByteBuffer header = ByteBuffer.allocate(Records.HEADER);
+            header.putInt(Records.MAGIC).putInt(Records.VERSION)
+                .putLong(written).putLong(pos).flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            channel.force(true);
+        }
+        final Path temp = location.resolveSibling(
+            String.format("%s.tmp", location.getFileName())
+        );
+        Files.write(
+            temp, Long.toString(successor).getBytes(StandardCharsets.UTF_8)
+        );
+        Files.move(
+            temp, location, StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE
+        );
+        Records.prune(location, successor);
+    }
+
+    /**
+     * File with given generation of records.
+     *
+     * @param location Location of index file.
+     * @param number Generation.
+     * @return File.
+     */
+    private static Path data(final Path location, final long number) {
+        return location.resolveSibling(
+            String.format("%s.%d", location.getFileName(), number)
+        );
+    }
+
+    /**
+     * Delete generations of records other than the current one. Files
+     * that are still mapped may not be deleted, they are deleted by one
+     * of next saves.
+     *
+     * @param location Location of index file.
+     * @param current Current generation.
+     * @throws IOException If fails.
+     */
+    private static void prune(final Path location, final long current)
+        throws IOException {
+        final String prefix = String.format("%s.", location.getFileName());
+        final String keep = Records.data(location, current)
+            .getFileName().toString();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(
+            location.toAbsolutePath().getParent()
+        )) {
+            for (final Path file : files) {
+                final String name = file.getFileName().toString();
+                if (name.startsWith(prefix) && !name.equals(keep)
+                    && name.substring(prefix.length()).matches("[0-9]+")) {
+                    try {
+                        Files.deleteIfExists(file);
+                    } catch (final IOException exc) {
+                        Logger.debug(
+                            Records.class, "Unable to delete %s: %s",
+                            file, exc
+                        );
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Next entry of the iterator.
+     *
+     * @param entries Iterator.
+     * @return Entry or null if there are no more entries.
+     */
+    private static Map.Entry<byte[], Index.Record> next(
+        final Iterator<Map.Entry<byte[], Index.Record>> entries) {
+        Map.Entry<byte[], Index.Record> result = null;
+        if (entries.hasNext()) {
+            result = entries.next();
+        }
+        return result;
+    }
+
+    /**
+     * Write record.
+     *
+     * @param key Bytes of path.
+     * @param record Record.
+     * @param out Output.
+     * @return Number of written bytes.
+     * @throws IOException If fails.
+     */
+    private static long write(final byte[] key, final Index.Record record,
+        final DataOutputStream out) throws IOException {
+        final List<byte[]> names = new ArrayList<>(record.subdirs().size());
+        int size = 20 + key.length;
+        for (final String child : record.subdirs()) {
+            final byte[] name = child.getBytes(StandardCharsets.UTF_8);
+            names.add(name);
+            size += 4 + name.length;
+        }
+        out.writeInt(size);
+        out.writeInt(key.length);
+        out.write(key);
+        out.writeLong(record.modified());
+        out.writeInt(record.matched());
+        out.writeInt(names.size());
+        for (final byte[] name : names) {
+            out.writeInt(name.length);
+            out.write(name);
+        }
+        return 4L + size;
+    }
+
+    /**
+     * Bytes of the path, records are sorted by them.
+     *
+     * @param path Absolute and normalized path.
+     * @return Bytes.
+     */
+    private static byte[] key(final Path path) {
+        return path.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Compare bytes of paths, as unsigned numbers.
+     *
+     * @param left Bytes of path.
+     * @param right Bytes of other path.
+     * @return Negative, zero or positive number, as in comparator.
+     */
+    private static int compare(final byte[] left, final byte[] right) {
+        int result = left.length - right.length;
+        for (int idx = 0; idx < Math.min(left.length, right.length); ++idx) {
+            if (left[idx] != right[idx]) {
+                result = (left[idx] & 0xff) - (right[idx] & 0xff);
+                break;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Compare path of the record with other path, by code points, which
+     * gives the same order as unsigned UTF-8 bytes.
+     *
+     * @param pos Offset of record.
+     * @param key Other path.
+     * @return Negative, zero or positive number, as in comparator.
+     */
+    private int compare(final long pos, final String key) {
+        final long end = pos + 8L + this.integer(pos + 4L);
+        long at = pos + 8L;
+        int idx = 0;
+        int result = 0;
+        while (result == 0 && at < end && idx < key.length()) {
+            final int width = Records.width(this.get(at));
+            final int point = key.codePointAt(idx);
+            result = Integer.compare(this.point(at, width), point);
+            at += width;
+            idx += Character.charCount(point);
+        }
+        if (result == 0) {
+            result = Boolean.compare(at < end, idx < key.length());
+        }
+        return result;
+    }
+
+    /**
+     * Code point of UTF-8 sequence.
+     *
+     * @param pos Offset of sequence.
+     * @param width Number of bytes of sequence.
+     * @return Code point.
+     */
+    private int point(final long pos, final int width) {
+        int result = this.get(pos) & 0xff;
+        if (width > 1) {
+            result &= 0xff >>> width + 1;
+            for (int idx = 1; idx < width; ++idx) {
+                result = result << 6 | this.get(pos + idx) & 0x3f;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Number of bytes of UTF-8 sequence.
+     *
+     * @param lead First byte of sequence.
+     * @return Number of bytes.
+     */
+    private static int width(final byte lead) {
+        final int bits = lead & 0xff;
+        int result = 1;
+        if (bits >= 0xf0) {
+            result = 4;
+        } else if (bits >= 0xe0) {
+            result = 3;
+        } else if (bits >= 0xc0) {
+            result = 2;
+        }
+        return result;
+    }
+
+    /**
+     * Compare path of the record with bytes of other path.
+     *
+     * @param pos Offset of record.
+     * @param key Bytes of other path.
+     * @return Negative, zero or positive number, as in comparator.
+     */
+    private int compare(final long pos, final byte[] key) {
+        final int length = this.integer(pos + 4L);
+        int result = length - key.length;
+        for (int idx = 0; idx < Math.min(length, key.length); ++idx) {
+            final byte chr = this.get(pos + 8L + idx);
+            if (chr != key[idx]) {
+                result = (chr & 0xff) - (key[idx] & 0xff);
+                break;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * First record, starting from given one, that is outside of the base
+     * directory.
+     *
+     * @param from Number of first record to check.
+     * @param base Bytes of path of base directory.
+     * @param prefix Bytes of path of base directory with separator.
+     * @return Number of record or number of records if there is none.
+     */
+    private long outside(final long from, final byte[] base,
+        final byte[] prefix) {
+        long id = from;
+        while (id < this.count && (this.compare(this.offset(id), base) == 0
+            || this.starts(this.offset(id), prefix))) {
+            ++id;
+        }
+        return id;
+    }
+
+    /**
+     * Check if path of the record starts with given bytes.
+     *
+     * @param pos Offset of record.
+     * @param prefix Bytes.
+     * @return True if it does.
+     */
+    private boolean starts(final long pos, final byte[] prefix) {
+        boolean result = this.integer(pos + 4L) >= prefix.length;
+        for (int idx = 0; result && idx < prefix.length; ++idx) {
+            result = this.get(pos + 8L + idx) == prefix[idx];
+        }
+        return result;
+    }
+
+    /**
+     * Copy record as it is.
+     *
+     * @param pos Offset of record.
+     * @param out Output.
+     * @return Number of written bytes.
+     * @throws IOException If fails.
+     */
+    private long copy(final long pos, final DataOutputStream out)
+        throws IOException {
+        final long size = 4L + this.integer(pos);
+        final byte[] chunk = new byte[Records.COPY];
+        for (long done = 0L; done < size;) {
+            final long at = pos + done;
+            final ByteBuffer segment = this.segments[
+                (int) (at >>> Records.SHIFT)
+            ].duplicate();
+            segment.position((int) (at & (Records.SEGMENT - 1L)));
+            final int length = (int) Math.min(
+                Math.min(size - done, chunk.length), segment.remaining()
+            );
+            segment.get(chunk, 0, length);
+            out.write(chunk, 0, length);
+            done += length;
+        }
+        return size;
+    }
+
+    /**
+     * Offset of record.
+     *
+     * @param id Number of record.
+     * @return Offset.
+     */
+    private long offset(final long id) {
+        return this.number(this.table + (id << 3));
+    }
+
+    /**
+     * Byte at given offset.
+     *
+     * @param pos Offset.
+     * @return Byte.
+     */
+    private byte get(final long pos) {
+        return this.segments[(int) (pos >>> Records.SHIFT)]
+            .get((int) (pos & (Records.SEGMENT - 1L)));
+    }
+
+    /**
+     * Integer at given offset, which may span two segments.
+     *
+     * @param pos Offset.
+     * @return Integer.
+     */
+    private int integer(final long pos) {
+        int result = 0;
+        for (int idx = 0; idx < 4; ++idx) {
+            result = result << 8 | this.get(pos + idx) & 0xff;
+        }
+        return result;
+    }
+
+    /**
+     * Long at given offset, which may span two segments.
+     *
+     * @param pos Offset.
+     * @return Long.
+     */
+    private long number(final long pos) {
+        return (long) this.integer(pos) << 32
+            | this.integer(pos + 4L) & 0xffffffffL;
+    }
+}
@@ -23,14 +23,14 @@
  */
 package com.opentangerine.clean;
 
-import java.util.Scanner;
+import java.util.Map;
 import java.util.function.Function;
 import org.apache.commons.lang3.StringUtils;
-import org.apache.commons.lang3.text.StrBuilder;
 
 /**
  * Replace object that is able to apply specific line transformation for a
- * given text.
+ * given text. Transformations are collected and applied to all lines at
+ * once, see {@link Lines}, when output is requested.
  *
  * @author Grzegorz Gajos (grzegorz.gajos@opentangerine.com)
  * @version $Id$
@@ -42,12 +42,27 @@ public final class Replace {
      */
     private final transient String text;
 
+    /**
+     * Transformations.
+     */
+    private final transient Lines lines;
+
     /**
      * Ctor.
      * @param content Raw text text.
      */
     public Replace(final String content) {
+        this(content, new Lines());
+    }
+
+    /**
+     * Ctor.
+     * @param content Raw text text.
+     * @param clines Transformations.
+     */
+    private Replace(final String content, final Lines clines) {
         this.text = content;
+        this.lines = clines;
     }
 
     /**
@@ -62,19 +77,10 @@ public final class Replace {
         final Function<String, Boolean> matching,
         final Function<String, String> transformation
     ) {
-        final StrBuilder out = new StrBuilder();
-        try (Scanner scanner = new Scanner(this.text)) {
-            while (scanner.hasNextLine()) {
-                final String line = scanner.nextLine();
-                if (matching.apply(line)) {
-                    out.append(transformation.apply(line));
-                } else {
-                    out.append(line);
-                }
-                out.appendNewLine();
-            }
-        }
-        return new Replace(out.build());
+        return new Replace(
+            this.text,
+            this.lines.then(matching, transformation)
+        );
     }
 
     /**
@@ -91,13 +97,25 @@ public final class Replace {
         );
     }
 
+    /**
+     * Replace many literals with their values in a single pass over every
+     * line, see {@link Literals}. Literals should not contain line breaks.
+     *
+     * @param values Values of literals.
+     * @return Replace object.
+     */
+    public Replace replace(final Map<String, String> values) {
+        final Literals literals = new Literals(values);
+        return this.replace(it -> true, literals::replace);
+    }
+
     /**
      * Return final version of text.
      *
      * @return Final version of text.
      */
     public String output() {
-        return this.text;
+        return this.lines.transform(this.text);
     }
 
 }
@@ -0,0 +1,409 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 opentangerine.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.opentangerine.clean;
+
+import com.jcabi.log.Logger;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Optional;
+import org.apache.commons.io.FileUtils;
+
+/**
+ * Sink of events of the run: paths found, paths that could not be deleted
+ * and the end of the run. Events carry raw values, every sink formats them
+ * on its own and only if it is going to emit them, so no work is done for
+ * events nobody is interested in. Sinks are safe to use from many threads
+ * at once.
+ *
+ * @author Grzegorz Gajos (grzegorz.gajos@opentangerine.com)
+ * @version $Id$
+ * @since 1.1
+ */
+interface Report {
+
+    /**
+     * File or directory has been found.
+     *
+     * @param path Path.
+     * @param directory Is it a directory.
+     * @param bytes Size of the file or directory.
+     */
+    void found(Path path, boolean directory, long bytes);
+
+    /**
+     * File or directory could not be deleted.
+     *
+     * @param path Path.
+     * @param exc Reason.
+     */
+    void failed(Path path, IOException exc);
+
+    /**
+     * Run has finished, all events have been reported. Sink has to emit
+     * everything it still keeps before it returns.
+     *
+     * @param elements Number of files and directories found.
+     * @param bytes Number of bytes found.
+     * @param failures Number of files and directories not deleted.
+     */
+    void finished(long elements, long bytes, long failures);
+
+    /**
+     * Sinks requested by mode: console, unless --silent is given, and
+     * NDJSON file, if --ndjson=FILE is given.
+     *
+     * @param mode Mode.
+     * @return Report to all requested sinks.
+     */
+    static Report of(final Mode mode) {
+        final Collection<Report> sinks = new ArrayList<>(2);
+        if (!mode.silent()) {
+            sinks.add(new Report.Console(mode.readonly()));
+        }
+        final Optional<Path> ndjson = mode.ndjson();
+        if (ndjson.isPresent()) {
+            sinks.add(new Report.Ndjson(ndjson.get()));
+        }
+        return new Report.All(sinks);
+    }
+
+    /**
+     * Report to many sinks, or to none of them.
+     */
+    final class All implements Report {
+
+        /**
+         * Sinks.
+         */
+        private final transient Report[] sinks;
+
+        /**
+         * Ctor.
+         *
+         * @param csinks Sinks.
+         */
+        All(final Collection<Report> csinks) {
+            this.sinks = csinks.toArray(new Report[csinks.size()]);
+        }
+
+        @Override
+        public void found(final Path path, final boolean directory,
+            final long bytes) {
+            for (final Report sink : this.sinks) {
+                sink.found(path, directory, bytes);
+            }
+        }
+
+        @Override
+        public void failed(final Path path, final IOException exc) {
+            for (final Report sink : this.sinks) {
+                sink.failed(path, exc);
+            }
+        }
+
+        /**
+         * Tell every sink that the run has finished, even if some of them
+         * fail, and throw the first failure afterwards.
+         *
+         * @param elements Number of files and directories found.
+         * @param bytes Number of bytes found.
+         * @param failures Number of files and directories not deleted.
+         */
+        @Override
+        public void finished(final long elements, final long bytes,
+            final long failures) {
+            RuntimeException failure = null;
+            for (final Report sink : this.sinks) {
+                try {
+                    sink.finished(elements, bytes, failures);
+                // @checkstyle IllegalCatchCheck (1 line)
+                } catch (final RuntimeException exc) {
+                    if (failure == null) {
+                        failure = exc;
+                    } else {
+                        failure.addSuppressed(exc);
+                    }
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    /**
+     * Human readable report printed to the log. Events are formatted and
+     * logged in background, so the run never waits for the console,
+     * unless there are more pending events than the buffer can keep.
+     */
+    final class Console implements Report {
+
+        /**
+         * Number of events waiting to be logged.
+         */
+        private static final int CAPACITY = 4096;
+
+        /**
+         * Readonly mode.
+         */
+        private final transient boolean readonly;
+
+        /**
+         * Events waiting to be logged.
+         */
+        private final transient Pipeline<Runnable> pending;
+
+        /**
+         * Ctor.
+         *
+         * @param creadonly Readonly mode.
+         */
+        Console(final boolean creadonly) {
+            this.readonly = creadonly;
+            this.pending = new Pipeline<Runnable>(Report.Console.CAPACITY)
+                .stage(
+                    "console", 1,
+                    event -> {
+                        event.run();
+                        return Optional.empty();
+                    }
+                );
+        }
+
+        @Override
+        public void found(final Path path, final boolean directory,
+            final long bytes) {
+            if (Logger.isInfoEnabled(Clean.class)) {
+                this.pending.submit(
+                    () -> Logger.info(
+                        Clean.class,
+                        String.format(
+                            "%s %s: %s [%s]",
+                            Report.Console.info(
+                                this.readonly, "Found", "Deleting"
+                            ),
+                            Report.Console.info(directory, "directory", "file"),
+                            path,
+                            FileUtils.byteCountToDisplaySize(bytes)
+                        )
+                    )
+                );
+            }
+        }
+
+        @Override
+        public void failed(final Path path, final IOException exc) {
+            if (Logger.isWarnEnabled(Clean.class)) {
+                this.pending.submit(
+                    () -> Logger.warn(
+                        Clean.class, "Unable to delete %s: %s", path, exc
+                    )
+                );
+            }
+        }
+
+        @Override
+        public void finished(final long elements, final long bytes,
+            final long failures) {
+            this.pending.finish();
+        }
+
+        /**
+         * Returns different description depends on provided condition.
+         *
+         * @param condition Condition.
+         * @param pos Value if true.
+         * @param neg Value if false.
+         * @return Value.
+         */
+        private static String info(
+            final boolean condition,
+            final String pos,
+            final String neg
+        ) {
+            String operation;
+            if (condition) {
+                operation = pos;
+            } else {
+                operation = neg;
+            }
+            return operation;
+        }
+    }
+
+    /**
+     * Report written to the file as newline delimited JSON, one object
+     * for every event. Lines are built in a single reused buffer and
+     * written through buffered writer, file is complete once the run has
+     * finished. File is opened with the first event, so creating the
+     * report never touches it, and always closed when the run has
+     * finished.
+     */
+    final class Ndjson implements Report {
+
+        /**
+         * File.
+         */
+        private final transient Path file;
+
+        /**
+         * Writer, empty until the first event.
+         */
+        private transient Optional<Writer> out;
+
+        /**
+         * Line being built.
+         */
+        private final transient StringBuilder line;
+
+        /**
+         * Ctor.
+         *
+         * @param cfile File.
+         */
+        Ndjson(final Path cfile) {
+            this.file = cfile;
+            this.out = Optional.empty();
+            this.line = new StringBuilder(0);
+        }
+
+        @Override
+        public synchronized void found(final Path path,
+            final boolean directory, final long bytes) {
+            this.line.append("{\"event\":\"found\",\"path\":");
+            this.string(path.toString());
+            this.line.append(",\"directory\":").append(directory)
+                .append(",\"bytes\":").append(bytes).append('}');
+            this.emit();
+        }
+
+        @Override
+        public synchronized void failed(final Path path,
+            final IOException exc) {
+            this.line.append("{\"event\":\"failed\",\"path\":");
+            this.string(path.toString());
+            this.line.append(",\"error\":");
+            this.string(exc.toString());
+            this.line.append('}');
+            this.emit();
+        }
+
+        @Override
+        public synchronized void finished(final long elements,
+            final long bytes, final long failures) {
+            this.line.append("{\"event\":\"finished\",\"elements\":")
+                .append(elements).append(",\"bytes\":").append(bytes)
+                .append(",\"failures\":").append(failures).append('}');
+            try {
+                this.emit();
+            } finally {
+                this.close();
+            }
+        }
+
+        /**
+         * Write line and clear the buffer.
+         */
+        private void emit() {
+            this.line.append('\n');
+            try {
+                this.writer().append(this.line);
+            } catch (final IOException exc) {
+                Logger.warn(
+                    this, "Unable to write report to %s: %s", this.file, exc
+                );
+            } finally {
+                this.line.setLength(0);
+            }
+        }
+
+        /**
+         * Writer of the file, opened if needed.
+         *
+         * @return Writer.
+         */
+        private Writer writer() {
+            if (!this.out.isPresent()) {
+                try {
+                    this.out = Optional.of(
+                        Files.newBufferedWriter(
+                            this.file, StandardCharsets.UTF_8
+                        )
+                    );
+                } catch (final IOException exc) {
+                    throw new IllegalStateException(
+                        String.format(
+                            "Unable to write report to %s", this.file
+                        ),
+                        exc
+                    );
+                }
+            }
+            return this.out.get();
+        }
+
+        /**
+         * Close the file, if it is open.
+         */
+        private void close() {
+            if (this.out.isPresent()) {
+                try {
+                    this.out.get().close();
+                } catch (final IOException exc) {
+                    Logger.warn(
+                        this, "Unable to write report to %s: %s",
+                        this.file, exc
+                    );
+                } finally {
+                    this.out = Optional.empty();
+                }
+            }
+        }
+
+        /**
+         * Append JSON string.
+         *
+         * @param text Text.
+         */
+        private void string(final String text) {
+            this.line.append('"');
+            for (int idx = 0; idx < text.length(); ++idx) {
+                final char chr = text.charAt(idx);
+                if (chr == '"' || chr == '\\') {
+                    this.line.append('\\').append(chr);
+                } else if (chr < ' ') {
+                    this.line.append(String.format("\\u%04x", (int) chr));
+                } else {
+                    this.line.append(chr);
+                }
+            }
+            this.line.append('"');
+        }
+    }
+}
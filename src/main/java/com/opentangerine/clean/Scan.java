@@ -25,14 +25,29 @@ package com.opentangerine.clean;
 
 import com.google.common.collect.Lists;
 import com.jcabi.log.Logger;
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
 import java.nio.file.Path;
-import java.util.Arrays;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.stream.Stream;
-import org.apache.maven.shared.utils.io.DirectoryScanner;
+import java.util.stream.StreamSupport;
 
 /**
- * Scan directories and return list of files or directories to delete.
+ * Scan directories and return files or directories to delete.
+ *
+ * <p>Patterns are compiled into {@link Glob} and evaluated name by name
+ * while walking, so only directories that may still contain a match are
+ * listed. Symbolic links are never followed.
  *
  * @author Grzegorz Gajos (grzegorz.gajos@opentangerine.com)
  * @version $Id$
@@ -40,6 +55,27 @@ import org.apache.maven.shared.utils.io.DirectoryScanner;
  */
 public final class Scan {
 
+    /**
+     * Metrics of the run.
+     */
+    private final transient Metrics metrics;
+
+    /**
+     * Ctor.
+     */
+    public Scan() {
+        this(Metrics.DISABLED);
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param cmetrics Metrics of the run.
+     */
+    Scan(final Metrics cmetrics) {
+        this.metrics = cmetrics;
+    }
+
     /**
      * Execute scan.
      *
@@ -48,17 +84,8 @@ public final class Scan {
      * @return Stream of files.
      */
     public Stream<Path> scan(final Path path, final String... patterns) {
-        Logger.debug(this, "Scanner: %s", path);
-        final DirectoryScanner scanner = new DirectoryScanner();
-        scanner.setIncludes(patterns);
         Logger.debug(this, "- deletes: %s", Lists.newArrayList(patterns));
-        scanner.setBasedir(path.toFile());
-        scanner.setCaseSensitive(false);
-        scanner.scan();
-        return Stream.concat(
-            Arrays.stream(scanner.getIncludedDirectories()),
-            Arrays.stream(scanner.getIncludedFiles())
-        ).map(path::resolve);
+        return this.scan(path, Glob.compile(patterns));
     }
 
     /**
@@ -72,4 +99,212 @@ public final class Scan {
         return this.scan(path, patterns.toArray(new String[patterns.size()]));
     }
 
+    /**
+     * Execute scan using compiled patterns. Scan is lazy, matches are
+     * found while stream is consumed, one by one, and nothing is kept
+     * apart from directories on the way from the working directory, so
+     * memory does not depend on the number of matches. Matching
+     * directories are returned before anything that is inside them.
+     * Stream should be closed if it is not consumed till the end.
+     *
+     * @param path Working directory.
+     * @param glob Compiled patterns.
+     * @return Stream of files.
+     */
+    public Stream<Path> scan(final Path path, final Glob glob) {
+        Logger.debug(this, "Scanner: %s", path);
+        final Scan.Walker walker = new Scan.Walker(path, glob, this.metrics);
+        return StreamSupport.stream(
+            Spliterators.spliteratorUnknownSize(
+                walker, Spliterator.ORDERED | Spliterator.NONNULL
+            ),
+            false
+        ).onClose(walker::close);
+    }
+
+    /**
+     * Iterator that walks the tree while it is asked for the next match.
+     * It tracks state of the patterns for every directory on the way from
+     * the working directory and skips directories that cannot contain any
+     * match.
+     */
+    private static final class Walker implements Iterator<Path> {
+
+        /**
+         * Directories being walked, the deepest first.
+         */
+        private final transient Deque<Scan.Frame> frames;
+
+        /**
+         * Matches found, but not returned yet.
+         */
+        private final transient Deque<Path> ahead;
+
+        /**
+         * Metrics of the run.
+         */
+        private final transient Metrics metrics;
+
+        /**
+         * Time spent walking in nanoseconds, while metrics are enabled.
+         */
+        private transient long spent;
+
+        /**
+         * Ctor.
+         *
+         * @param path Working directory.
+         * @param glob Compiled patterns.
+         * @param cmetrics Metrics of the run.
+         */
+        Walker(final Path path, final Glob glob, final Metrics cmetrics) {
+            this.frames = new ArrayDeque<>(0);
+            this.ahead = new ArrayDeque<>(1);
+            this.metrics = cmetrics;
+            if (Files.isDirectory(path)) {
+                this.enter(path, glob.start());
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            final long start = this.metrics.clock();
+            while (this.ahead.isEmpty() && !this.frames.isEmpty()) {
+                this.advance();
+            }
+            this.spent += this.metrics.clock() - start;
+            if (this.ahead.isEmpty()) {
+                this.close();
+            }
+            return !this.ahead.isEmpty();
+        }
+
+        @Override
+        public Path next() {
+            if (!this.hasNext()) {
+                throw new NoSuchElementException("No more matches");
+            }
+            return this.ahead.poll();
+        }
+
+        /**
+         * Close all directories being walked, scan ends.
+         */
+        public void close() {
+            while (!this.frames.isEmpty()) {
+                this.frames.pop().close();
+            }
+            if (this.spent > 0L) {
+                this.metrics.add(Metrics.Phase.SCAN, this.spent);
+                this.spent = 0L;
+            }
+        }
+
+        /**
+         * Visit next entry of the deepest directory, or leave it if there
+         * are no more entries.
+         */
+        private void advance() {
+            final Scan.Frame frame = this.frames.peek();
+            final Optional<Path> entry = frame.next();
+            if (entry.isPresent()) {
+                final Path path = entry.get();
+                this.metrics.increment(Metrics.Counter.STATS);
+                final Glob.State state = frame.state.next(
+                    path.getFileName().toString()
+                );
+                if (Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+                    this.enter(path, state);
+                } else if (state.matches()) {
+                    this.ahead.add(path);
+                }
+            } else {
+                this.frames.pop().close();
+            }
+        }
+
+        /**
+         * Enter directory, if it can contain any match.
+         *
+         * @param dir Directory.
+         * @param state State of patterns in the directory.
+         */
+        private void enter(final Path dir, final Glob.State state) {
+            if (state.matches()) {
+                this.ahead.add(dir);
+            }
+            if (state.alive()) {
+                try {
+                    this.frames.push(
+                        new Scan.Frame(state, Files.newDirectoryStream(dir))
+                    );
+                    this.metrics.increment(Metrics.Counter.READDIRS);
+                } catch (final IOException exc) {
+                    Logger.debug(Scan.class, "Unable to list %s: %s", dir, exc);
+                }
+            }
+        }
+    }
+
+    /**
+     * Directory being walked.
+     */
+    private static final class Frame {
+
+        /**
+         * State of patterns in the directory.
+         */
+        private final transient Glob.State state;
+
+        /**
+         * Entries of the directory.
+         */
+        private final transient DirectoryStream<Path> stream;
+
+        /**
+         * Iterator of entries.
+         */
+        private final transient Iterator<Path> entries;
+
+        /**
+         * Ctor.
+         *
+         * @param cstate State of patterns in the directory.
+         * @param cstream Entries of the directory.
+         */
+        Frame(final Glob.State cstate, final DirectoryStream<Path> cstream) {
+            this.state = cstate;
+            this.stream = cstream;
+            this.entries = cstream.iterator();
+        }
+
+        /**
+         * Next entry.
+         *
+         * @return Entry, empty if there are no more entries or they cannot
+         *  be read.
+         */
+        public Optional<Path> next() {
+            Optional<Path> entry = Optional.empty();
+            try {
+                if (this.entries.hasNext()) {
+                    entry = Optional.of(this.entries.next());
+                }
+            } catch (final DirectoryIteratorException exc) {
+                Logger.debug(Scan.class, "Unable to list: %s", exc);
+            }
+            return entry;
+        }
+
+        /**
+         * Close directory.
+         */
+        public void close() {
+            try {
+                this.stream.close();
+            } catch (final IOException exc) {
+                Logger.debug(Scan.class, "Unable to close: %s", exc);
+            }
+        }
+    }
 }
@@ -0,0 +1,431 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 opentangerine.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.opentangerine.clean;
+
+import com.jcabi.log.Logger;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * Size accounting. Computes size of the file or whole directory in single
+ * walk, using attributes that are read while walking anyway. Symbolic
+ * links are never followed.
+ *
+ * <p>Totals of measured directories are memoized. If a directory contains
+ * files or directories that are already known, e.g. because they are
+ * separate matches, they are walked at most once and their size is
+ * reported separately, so nothing is counted twice, no matter which one
+ * is measured first.
+ *
+ * <p>In parallel mode every directory is measured by separate
+ * {@link RecursiveTask}, so subdirectories are measured at the same time.
+ * Tasks run in own {@link ForkJoinPool} with given number of workers,
+ * never in the common pool.
+ *
+ * @author Grzegorz Gajos (grzegorz.gajos@opentangerine.com)
+ * @version $Id$
+ * @since 1.1
+ */
+final class Size {
+
+    /**
+     * Pool of workers, empty if directories are measured by the calling
+     * thread.
+     */
+    private final transient Optional<ForkJoinPool> pool;
+
+    /**
+     * Totals of already measured directories.
+     */
+    private final transient Map<Path, Long> memo;
+
+    /**
+     * Metrics of the run.
+     */
+    private final transient Metrics metrics;
+
+    /**
+     * Ctor.
+     */
+    Size() {
+        this(1);
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param workers Number of workers, directories are measured in
+     *  parallel if greater than 1.
+     */
+    Size(final int workers) {
+        this(workers, Metrics.DISABLED);
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param workers Number of workers, directories are measured in
+     *  parallel if greater than 1.
+     * @param cmetrics Metrics of the run.
+     */
+    Size(final int workers, final Metrics cmetrics) {
+        if (workers > 1) {
+            this.pool = Optional.of(new ForkJoinPool(workers));
+        } else {
+            this.pool = Optional.empty();
+        }
+        this.memo = new ConcurrentHashMap<>(0);
+        this.metrics = cmetrics;
+    }
+
+    /**
+     * Size of the file or directory under given path.
+     *
+     * @param path Path.
+     * @return Number of bytes.
+     */
+    public long of(final Path path) {
+        return this.of(path, it -> false).total();
+    }
+
+    /**
+     * Size of the file or directory under given path.
+     *
+     * @param path Path.
+     * @param known Predicate of files and directories inside of the path
+     *  that have been already accounted for.
+     * @return Number of bytes.
+     */
+    public Size.Bytes of(final Path path, final Predicate<Path> known) {
+        Long total = this.memo.get(path);
+        final LongAdder reused = new LongAdder();
+        if (total == null) {
+            if (this.pool.isPresent()
+                && Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+                total = this.pool.get().invoke(
+                    new Size.Task(path, known, reused)
+                );
+            } else {
+                total = this.walk(path, known, reused);
+            }
+            this.memo.put(path, total);
+            this.metrics.add(Metrics.Counter.SIZED, total);
+        }
+        return new Size.Bytes(total, total - reused.sum());
+    }
+
+    /**
+     * Measure path in single walk using current thread.
+     *
+     * @param path Path.
+     * @param known Predicate of already accounted files and directories.
+     * @param reused Accumulator of already accounted bytes.
+     * @return Number of bytes.
+     */
+    private long walk(final Path path, final Predicate<Path> known,
+        final LongAdder reused) {
+        final Size.Visitor visitor = new Size.Visitor(this.metrics) {
+            @Override
+            public FileVisitResult preVisitDirectory(
+                final Path dir,
+                final BasicFileAttributes attrs
+            ) {
+                FileVisitResult result = FileVisitResult.CONTINUE;
+                if (!dir.equals(path) && known.test(dir)) {
+                    final long bytes = Size.this.known(dir);
+                    this.add(bytes);
+                    reused.add(bytes);
+                    result = FileVisitResult.SKIP_SUBTREE;
+                } else {
+                    Size.this.metrics.increment(Metrics.Counter.READDIRS);
+                }
+                return result;
+            }
+
+            @Override
+            public FileVisitResult visitFile(
+                final Path file,
+                final BasicFileAttributes attrs
+            ) {
+                if (attrs.isRegularFile() && !file.equals(path)
+                    && known.test(file)) {
+                    reused.add(attrs.size());
+                }
+                return super.visitFile(file, attrs);
+            }
+        };
+        try {
+            Files.walkFileTree(path, visitor);
+        } catch (final IOException exc) {
+            throw new IllegalStateException(
+                String.format("Unable to measure %s", path), exc
+            );
+        }
+        return visitor.bytes();
+    }
+
+    /**
+     * Size of directory that has been already accounted for.
+     *
+     * @param dir Directory.
+     * @return Number of bytes.
+     */
+    private long known(final Path dir) {
+        Long total = this.memo.get(dir);
+        if (total == null) {
+            total = this.walk(dir, it -> false, new LongAdder());
+            this.memo.putIfAbsent(dir, total);
+        }
+        return total;
+    }
+
+    /**
+     * Measured size.
+     */
+    static final class Bytes {
+
+        /**
+         * Total number of bytes.
+         */
+        private final transient long all;
+
+        /**
+         * Number of bytes not accounted for before.
+         */
+        private final transient long unseen;
+
+        /**
+         * Ctor.
+         *
+         * @param call Total number of bytes.
+         * @param cunseen Number of bytes not accounted for before.
+         */
+        Bytes(final long call, final long cunseen) {
+            this.all = call;
+            this.unseen = cunseen;
+        }
+
+        /**
+         * Total number of bytes.
+         *
+         * @return Bytes.
+         */
+        public long total() {
+            return this.all;
+        }
+
+        /**
+         * Number of bytes that have not been accounted for before.
+         *
+         * @return Bytes.
+         */
+        public long fresh() {
+            return this.unseen;
+        }
+    }
+
+    /**
+     * File visitor that sums sizes of all visited files. It can be
+     * extended by other walks that want to measure files they visit.
+     */
+    static class Visitor extends SimpleFileVisitor<Path> {
+
+        /**
+         * Metrics of the run.
+         */
+        private final transient Metrics metrics;
+
+        /**
+         * Bytes so far.
+         */
+        private transient long total;
+
+        /**
+         * Ctor.
+         *
+         * @param cmetrics Metrics of the run.
+         */
+        Visitor(final Metrics cmetrics) {
+            super();
+            this.metrics = cmetrics;
+        }
+
+        @Override
+        public FileVisitResult visitFile(
+            final Path file,
+            final BasicFileAttributes attrs
+        ) {
+            this.metrics.increment(Metrics.Counter.STATS);
+            if (attrs.isRegularFile()) {
+                this.add(attrs.size());
+            }
+            return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFileFailed(
+            final Path file,
+            final IOException exc
+        ) {
+            Logger.debug(Size.class, "Unable to measure %s: %s", file, exc);
+            return FileVisitResult.CONTINUE;
+        }
+
+        /**
+         * Number of bytes of all files visited so far.
+         *
+         * @return Bytes.
+         */
+        public final long bytes() {
+            return this.total;
+        }
+
+        /**
+         * Add bytes to the total.
+         *
+         * @param bytes Bytes.
+         */
+        protected final void add(final long bytes) {
+            this.total += bytes;
+        }
+    }
+
+    /**
+     * Task that measures files of single directory and forks one task for
+     * each of its subdirectories.
+     */
+    private final class Task extends RecursiveTask<Long> {
+
+        /**
+         * Serialization marker.
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Directory.
+         */
+        private final transient Path dir;
+
+        /**
+         * Predicate of already accounted files and directories.
+         */
+        private final transient Predicate<Path> known;
+
+        /**
+         * Accumulator of already accounted bytes.
+         */
+        private final transient LongAdder reused;
+
+        /**
+         * Ctor.
+         *
+         * @param cdir Directory.
+         * @param cknown Predicate of already accounted files and
+         *  directories.
+         * @param creused Accumulator of already accounted bytes.
+         */
+        Task(final Path cdir, final Predicate<Path> cknown,
+            final LongAdder creused) {
+            super();
+            this.dir = cdir;
+            this.known = cknown;
+            this.reused = creused;
+        }
+
+        @Override
+        protected Long compute() {
+            long total = 0L;
+            final Collection<Size.Task> tasks = new ArrayList<>(0);
+            Size.this.metrics.increment(Metrics.Counter.READDIRS);
+            try (DirectoryStream<Path> stream =
+                Files.newDirectoryStream(this.dir)) {
+                for (final Path entry : stream) {
+                    total += this.entry(entry, tasks);
+                }
+            } catch (final IOException exc) {
+                Logger.debug(
+                    Size.class, "Unable to measure %s: %s", this.dir, exc
+                );
+            }
+            for (final Size.Task task : RecursiveTask.invokeAll(tasks)) {
+                total += task.join();
+            }
+            return total;
+        }
+
+        /**
+         * Measure single entry of the directory or schedule task for it.
+         *
+         * @param entry Entry.
+         * @param tasks Tasks to execute.
+         * @return Number of bytes measured right away.
+         */
+        private long entry(final Path entry,
+            final Collection<Size.Task> tasks) {
+            long bytes = 0L;
+            Size.this.metrics.increment(Metrics.Counter.STATS);
+            try {
+                final BasicFileAttributes attrs = Files.readAttributes(
+                    entry, BasicFileAttributes.class,
+                    LinkOption.NOFOLLOW_LINKS
+                );
+                if (attrs.isDirectory()) {
+                    if (this.known.test(entry)) {
+                        bytes = Size.this.known(entry);
+                        this.reused.add(bytes);
+                    } else {
+                        tasks.add(
+                            new Size.Task(entry, this.known, this.reused)
+                        );
+                    }
+                } else if (attrs.isRegularFile()) {
+                    bytes = attrs.size();
+                    if (this.known.test(entry)) {
+                        this.reused.add(bytes);
+                    }
+                }
+            } catch (final IOException exc) {
+                Logger.debug(
+                    Size.class, "Unable to measure %s: %s", entry, exc
+                );
+            }
+            return bytes;
+        }
+    }
+}
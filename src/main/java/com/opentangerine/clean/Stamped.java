@@ -0,0 +1,86 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 opentangerine.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.opentangerine.clean;
+
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * Value computed from single version of the file. Version is recognized
+ * by modification time and size of the file, so the value can be reused
+ * as long as they stay the same.
+ *
+ * @author Grzegorz Gajos (grzegorz.gajos@opentangerine.com)
+ * @version $Id$
+ * @since 1.1
+ * @param <T> Type of the value.
+ */
+final class Stamped<T> {
+
+    /**
+     * Modification time.
+     */
+    private final transient long modified;
+
+    /**
+     * Size.
+     */
+    private final transient long size;
+
+    /**
+     * Value.
+     */
+    private final transient T computed;
+
+    /**
+     * Ctor.
+     *
+     * @param attrs Attributes of the file.
+     * @param value Value computed from the file.
+     */
+    Stamped(final BasicFileAttributes attrs, final T value) {
+        this.modified = attrs.lastModifiedTime().toMillis();
+        this.size = attrs.size();
+        this.computed = value;
+    }
+
+    /**
+     * Is it the same version of the file.
+     *
+     * @param attrs Current attributes of the file.
+     * @return True if file has not changed.
+     */
+    public boolean same(final BasicFileAttributes attrs) {
+        return this.modified == attrs.lastModifiedTime().toMillis()
+            && this.size == attrs.size();
+    }
+
+    /**
+     * Value computed from the file.
+     *
+     * @return Value.
+     */
+    public T value() {
+        return this.computed;
+    }
+}
@@ -24,12 +24,16 @@
 package com.opentangerine.clean;
 
 import com.jcabi.log.Logger;
-import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.LongAdder;
 import org.apache.commons.io.FileUtils;
 
 /**
  * Summary is responsible for gathering all statistics data in user
- * friendly way.
+ * friendly way. Every found and failed path is passed to the report, see
+ * {@link Report}, while totals are kept here. It is safe to use from many
+ * threads at once.
  *
  * @author Grzegorz Gajos (grzegorz.gajos@opentangerine.com)
  * @version $Id$
@@ -37,79 +41,112 @@ import org.apache.commons.io.FileUtils;
  */
 public final class Summary {
     /**
-     * Clean mode.
+     * Report of found and failed paths.
      */
-    private final transient Mode mode;
+    private final transient Report report;
     /**
      * Total bytes.
      */
-    private transient long total;
+    private final transient LongAdder total;
     /**
      * Count files and directories.
      */
-    private transient long count;
+    private final transient LongAdder count;
+    /**
+     * Count files and directories that could not be deleted.
+     */
+    private final transient LongAdder failures;
 
     /**
      * Ctor.
      * @param cmode Execution mode.
      */
     public Summary(final Mode cmode) {
-        this.mode = cmode;
+        this(Report.of(cmode));
+    }
+
+    /**
+     * Ctor.
+     * @param creport Report of found and failed paths.
+     */
+    Summary(final Report creport) {
+        this.report = creport;
+        this.total = new LongAdder();
+        this.count = new LongAdder();
+        this.failures = new LongAdder();
     }
 
     /**
      * Add file to summary.
      *
      * @param file File to add.
+     * @param directory Is it a directory.
+     * @param bytes Size of the file or directory, only bytes that have not
+     *  been accounted for before are added to the total.
      */
-    public void add(final File file) {
-        this.count += 1;
-        this.total += FileUtils.sizeOf(file);
-        Logger.info(
-            Clean.class,
-            String.format(
-                "%s %s: %s [%s]",
-                Summary.info(this.mode.readonly(), "Found", "Deleting"),
-                Summary.info(file.isDirectory(), "directory", "file"),
-                file,
-                FileUtils.byteCountToDisplaySize(FileUtils.sizeOf(file))
-            )
-        );
+    public void add(final Path file, final boolean directory,
+        final Size.Bytes bytes) {
+        this.count.increment();
+        this.total.add(bytes.fresh());
+        this.report.found(file, directory, bytes.total());
+    }
+
+    /**
+     * Add file that could not be deleted to summary.
+     *
+     * @param file File.
+     * @param exc Reason.
+     */
+    public void failed(final Path file, final IOException exc) {
+        this.failures.increment();
+        this.report.failed(file, exc);
+    }
+
+    /**
+     * Number of files and directories found so far.
+     * @return Number of elements.
+     */
+    public long elements() {
+        return this.count.sum();
+    }
+
+    /**
+     * Number of bytes of files and directories found so far.
+     * @return Bytes.
+     */
+    public long bytes() {
+        return this.total.sum();
+    }
+
+    /**
+     * Number of files and directories that could not be deleted so far.
+     * @return Number of failures.
+     */
+    public long failures() {
+        return this.failures.sum();
     }
 
     /**
      * Display summary based on current state.
      */
     public void finished() {
+        this.report.finished(
+            this.count.sum(), this.total.sum(), this.failures.sum()
+        );
         Logger.info(
             Clean.class,
             String.format(
                 "Summary: Found %s element(s) [%s]",
-                this.count,
-                FileUtils.byteCountToDisplaySize(this.total)
+                this.count.sum(),
+                FileUtils.byteCountToDisplaySize(this.total.sum())
             )
         );
-    }
-
-    /**
-     * Returns different description depends on provided condition.
-     *
-     * @param condition Condition.
-     * @param pos Value if true.
-     * @param neg Value if false.
-     * @return Value.
-     */
-    private static String info(
-        final boolean condition,
-        final String pos,
-        final String neg
-    ) {
-        String operation;
-        if (condition) {
-            operation = pos;
-        } else {
-            operation = neg;
+        if (this.failures.sum() > 0L) {
+            Logger.warn(
+                Clean.class,
+                "Unable to delete %s file(s) or directory(ies)",
+                this.failures.sum()
+            );
         }
-        return operation;
     }
 }
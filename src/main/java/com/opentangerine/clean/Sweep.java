@@ -0,0 +1,159 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 opentangerine.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.opentangerine.clean;
+
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Patterns evaluated incrementally by the crawler. Instead of scanning
+ * the subtree of every directory that registers patterns, the state of
+ * the patterns is carried from directory to its subdirectories while
+ * crawling, so every entry is tested once against every distinct active
+ * pattern, no matter how many nested projects registered it. Equal
+ * states, e.g. "**&#47;*.log" registered by a project and by its parent
+ * project, are merged.
+ *
+ * @author Grzegorz Gajos (grzegorz.gajos@opentangerine.com)
+ * @version $Id$
+ * @since 1.1
+ */
+final class Sweep {
+
+    /**
+     * Handler of matches.
+     */
+    private final transient Consumer<Path> found;
+
+    /**
+     * Active patterns of directories that are going to be visited.
+     */
+    private final transient ConcurrentMap<Path, Set<Glob.State>> frames;
+
+    /**
+     * Ctor.
+     *
+     * @param cfound Closure executed for every match.
+     */
+    Sweep(final Consumer<Path> cfound) {
+        this.found = cfound;
+        this.frames = new ConcurrentHashMap<>(0);
+    }
+
+    /**
+     * Register patterns relative to given directory. Have to be called
+     * before {@link #entries(Path, Predicate)} of this directory.
+     *
+     * @param dir Directory.
+     * @param glob Patterns.
+     */
+    public void add(final Path dir, final Glob glob) {
+        final Glob.State state = glob.start();
+        if (state.matches()) {
+            this.found.accept(dir);
+        }
+        if (state.alive()) {
+            this.frames
+                .computeIfAbsent(dir, key -> ConcurrentHashMap.newKeySet())
+                .add(state);
+        }
+    }
+
+    /**
+     * Check if there are patterns active in given directory.
+     *
+     * @param dir Directory.
+     * @return True if entries of directory have to be tested.
+     */
+    public boolean active(final Path dir) {
+        return this.frames.containsKey(dir);
+    }
+
+    /**
+     * Handler of entries of given directory. Tests every entry against
+     * active patterns and passes active patterns to subdirectories that
+     * are going to be visited.
+     *
+     * @param dir Directory.
+     * @param prune Predicate of directories that should not be visited.
+     * @return Handler that tells if entry should be visited.
+     */
+    public BiPredicate<Path, BasicFileAttributes> entries(final Path dir,
+        final Predicate<Path> prune) {
+        final Set<Glob.State> states = this.frames.remove(dir);
+        final BiPredicate<Path, BasicFileAttributes> result;
+        if (states == null) {
+            result = (entry, attrs) -> !prune.test(entry);
+        } else {
+            result = (entry, attrs) -> {
+                final Set<Glob.State> next = this.next(
+                    states, entry, attrs.isDirectory()
+                );
+                final boolean visit = !prune.test(entry);
+                if (visit && !next.isEmpty()) {
+                    this.frames.put(entry, next);
+                }
+                return visit;
+            };
+        }
+        return result;
+    }
+
+    /**
+     * Test entry against active patterns.
+     *
+     * @param states Active patterns.
+     * @param entry Entry.
+     * @param directory Is it a directory.
+     * @return Patterns still active inside of entry.
+     */
+    private Set<Glob.State> next(final Set<Glob.State> states,
+        final Path entry, final boolean directory) {
+        final String name = entry.getFileName().toString();
+        Set<Glob.State> result = Collections.emptySet();
+        boolean matches = false;
+        for (final Glob.State state : states) {
+            final Glob.State next = state.next(name);
+            matches |= next.matches();
+            if (directory && next.alive()) {
+                if (result.isEmpty()) {
+                    result = new HashSet<>(states.size());
+                }
+                result.add(next);
+            }
+        }
+        if (matches) {
+            this.found.accept(entry);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,247 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 opentangerine.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.opentangerine.clean;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.jcabi.log.Logger;
+import java.io.IOException;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Trash. Matched files and directories are atomically moved to the trash
+ * directory next to them, which takes milliseconds, and deleted by bounded
+ * pool of background threads while crawling goes on. Every run moves its
+ * matches to its own directory inside of the trash. Leftovers of
+ * interrupted runs are found by {@link Wipe.Type#TRASH} definition and
+ * deleted entry by entry, except for the directory of the current run.
+ *
+ * @author Grzegorz Gajos (grzegorz.gajos@opentangerine.com)
+ * @version $Id$
+ * @since 1.1
+ */
+final class Trash {
+
+    /**
+     * Name of the trash directory.
+     */
+    public static final String NAME = ".ot-clean-trash";
+
+    /**
+     * Number of removals waiting for a thread.
+     */
+    private static final int BACKLOG = 1024;
+
+    /**
+     * Summary.
+     */
+    private final transient Summary summary;
+
+    /**
+     * Deletion engine.
+     */
+    private final transient Unlink unlink;
+
+    /**
+     * Is trash enabled.
+     */
+    private final transient boolean enabled;
+
+    /**
+     * Background threads, started on demand.
+     */
+    private final transient ThreadPoolExecutor pool;
+
+    /**
+     * Removals in progress.
+     */
+    private final transient Phaser pending;
+
+    /**
+     * Name of the directory of this run inside of the trash.
+     */
+    private final transient String run;
+
+    /**
+     * Ctor.
+     *
+     * @param csummary Summary.
+     * @param cunlink Deletion engine.
+     * @param threads Number of background threads, 0 to disable trash.
+     */
+    Trash(final Summary csummary, final Unlink cunlink, final int threads) {
+        this.summary = csummary;
+        this.unlink = cunlink;
+        this.pending = new Phaser(1);
+        this.run = UUID.randomUUID().toString();
+        this.enabled = threads > 0;
+        final int size = Math.max(1, threads);
+        this.pool = new ThreadPoolExecutor(
+            size, size, 1L, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(Trash.BACKLOG),
+            new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("ot-clean-trash-%d")
+                .build(),
+            new ThreadPoolExecutor.CallerRunsPolicy()
+        );
+        this.pool.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Move file or directory to trash and delete it in background.
+     *
+     * @param path Path.
+     * @param directory Is it a directory.
+     * @return False if trash is disabled or path cannot be moved, so it
+     *  has to be deleted right away.
+     */
+    public boolean dispose(final Path path, final boolean directory) {
+        boolean disposed = false;
+        if (this.enabled) {
+            if (path.getFileName().toString().equals(Trash.NAME)) {
+                this.schedule(
+                    path, directory, path, () -> this.leftovers(path)
+                );
+                disposed = true;
+            } else {
+                disposed = this.move(path, directory);
+            }
+        }
+        return disposed;
+    }
+
+    /**
+     * Wait until all files moved to trash are deleted.
+     */
+    public void finish() {
+        this.pending.arriveAndAwaitAdvance();
+    }
+
+    /**
+     * Move path to trash directory next to it.
+     *
+     * @param path Path.
+     * @param directory Is it a directory.
+     * @return True if moved.
+     */
+    private boolean move(final Path path, final boolean directory) {
+        boolean moved = false;
+        try {
+            final Path bin = path.resolveSibling(Trash.NAME);
+            final Path target = Files.move(
+                path,
+                Files.createDirectories(bin.resolve(this.run)).resolve(
+                    String.format(
+                        "%s.%s", path.getFileName(), UUID.randomUUID()
+                    )
+                ),
+                StandardCopyOption.ATOMIC_MOVE
+            );
+            this.schedule(
+                path, directory, bin, () -> this.unlink.remove(target)
+            );
+            moved = true;
+        } catch (final IOException exc) {
+            Logger.debug(this, "Unable to move %s to trash: %s", path, exc);
+        }
+        return moved;
+    }
+
+    /**
+     * Delete leftovers of interrupted runs, but not the directory of this
+     * run, which may still be in use.
+     *
+     * @param bin Trash directory.
+     * @return Number of bytes deleted.
+     */
+    private long leftovers(final Path bin) {
+        long removed = 0L;
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(bin)) {
+            for (final Path entry : entries) {
+                if (!entry.getFileName().toString().equals(this.run)) {
+                    removed += this.unlink.remove(entry);
+                }
+            }
+        } catch (final NoSuchFileException exc) {
+            Logger.debug(this, "Trash is already deleted %s", bin);
+        } catch (final IOException exc) {
+            this.summary.failed(bin, exc);
+        }
+        return removed;
+    }
+
+    /**
+     * Schedule deletion of the file or directory in trash.
+     *
+     * @param origin Original path.
+     * @param directory Is it a directory.
+     * @param bin Trash directory.
+     * @param removal Deletion, returns number of bytes deleted.
+     * @checkstyle ParameterNumberCheck (3 lines)
+     */
+    private void schedule(final Path origin, final boolean directory,
+        final Path bin, final LongSupplier removal) {
+        this.pending.register();
+        this.pool.execute(
+            () -> {
+                try {
+                    final long removed = removal.getAsLong();
+                    this.summary.add(
+                        origin, directory, new Size.Bytes(removed, removed)
+                    );
+                    Trash.empty(bin.resolve(this.run));
+                    Trash.empty(bin);
+                } finally {
+                    this.pending.arriveAndDeregister();
+                }
+            }
+        );
+    }
+
+    /**
+     * Delete directory if there is nothing else left inside.
+     *
+     * @param dir Directory.
+     */
+    private static void empty(final Path dir) {
+        try {
+            Files.deleteIfExists(dir);
+        } catch (final DirectoryNotEmptyException exc) {
+            Logger.debug(Trash.class, "Trash is still in use %s", dir);
+        } catch (final IOException exc) {
+            Logger.debug(Trash.class, "Unable to delete %s: %s", dir, exc);
+        }
+    }
+}
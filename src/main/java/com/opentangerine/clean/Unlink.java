@@ -0,0 +1,145 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 opentangerine.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.opentangerine.clean;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * Bulk deletion engine. Deletes file or whole directory in single walk,
+ * removing directories after their content. Symbolic links are never
+ * followed, only links themselves are removed. Every file that cannot be
+ * deleted is reported to the summary and does not stop the deletion of
+ * the remaining ones.
+ *
+ * @author Grzegorz Gajos (grzegorz.gajos@opentangerine.com)
+ * @version $Id$
+ * @since 1.1
+ */
+final class Unlink {
+
+    /**
+     * Summary.
+     */
+    private final transient Summary summary;
+
+    /**
+     * Metrics of the run.
+     */
+    private final transient Metrics metrics;
+
+    /**
+     * Ctor.
+     *
+     * @param csummary Summary where failures are reported.
+     */
+    Unlink(final Summary csummary) {
+        this(csummary, Metrics.DISABLED);
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param csummary Summary where failures are reported.
+     * @param cmetrics Metrics of the run.
+     */
+    Unlink(final Summary csummary, final Metrics cmetrics) {
+        this.summary = csummary;
+        this.metrics = cmetrics;
+    }
+
+    /**
+     * Delete file or directory under given path.
+     *
+     * @param path Path.
+     * @return Number of bytes deleted.
+     */
+    public long remove(final Path path) {
+        final Unlink.Visitor visitor = new Unlink.Visitor();
+        try {
+            Files.walkFileTree(path, visitor);
+        } catch (final IOException exc) {
+            this.summary.failed(path, exc);
+        }
+        this.metrics.add(Metrics.Counter.DELETED, visitor.bytes());
+        return visitor.bytes();
+    }
+
+    /**
+     * Visitor that deletes files when visiting them and directories when
+     * leaving them. Size of deleted files is measured on the way.
+     */
+    private final class Visitor extends Size.Visitor {
+
+        /**
+         * Ctor.
+         */
+        Visitor() {
+            super(Unlink.this.metrics);
+        }
+
+        @Override
+        public FileVisitResult visitFile(
+            final Path file,
+            final BasicFileAttributes attrs
+        ) {
+            try {
+                Files.delete(file);
+                super.visitFile(file, attrs);
+            } catch (final IOException exc) {
+                Unlink.this.summary.failed(file, exc);
+            }
+            return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFileFailed(
+            final Path file,
+            final IOException exc
+        ) {
+            Unlink.this.summary.failed(file, exc);
+            return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult postVisitDirectory(
+            final Path dir,
+            final IOException exc
+        ) {
+            if (exc == null) {
+                try {
+                    Files.delete(dir);
+                } catch (final IOException iox) {
+                    Unlink.this.summary.failed(dir, iox);
+                }
+            } else {
+                Unlink.this.summary.failed(dir, exc);
+            }
+            return FileVisitResult.CONTINUE;
+        }
+    }
+}
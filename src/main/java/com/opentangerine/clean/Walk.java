@@ -0,0 +1,268 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 opentangerine.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.opentangerine.clean;
+
+import com.jcabi.log.Logger;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CountedCompleter;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Directory traversal engine. Visits every directory of the tree exactly
+ * once, in a single pass and without recursion, so deep trees cannot
+ * overflow the stack. Symbolic links are never followed.
+ *
+ * <p>Every directory is listed once, before it is visited, and the
+ * visitor gets the {@link Listing}, so it does not need to check the file
+ * system for entries on its own. Visitor returns handler of entries,
+ * which is called for every entry of the listing and decides which
+ * directories to walk into. Directories accepted by the pruning
+ * predicate, e.g. the ones already claimed for deletion, are skipped
+ * together with their whole subtree.
+ *
+ * <p>With more than one worker, directories are crawled on a work-stealing
+ * {@link ForkJoinPool}. Every directory is still handed to the visitor
+ * before its children are visited, so the visitor may safely delete
+ * anything below the directory it has been given. Listing and visiting of
+ * a directory is a single unit of blocking work, see {@link Blocking}.
+ *
+ * @author Grzegorz Gajos (grzegorz.gajos@opentangerine.com)
+ * @version $Id$
+ * @since 1.1
+ */
+final class Walk {
+
+    /**
+     * Directory lister.
+     */
+    private final transient Function<Path, Listing> lister;
+
+    /**
+     * Directory visitor, returns handler of directory entries.
+     */
+    private final transient Function<Listing, BiPredicate<Path,
+        BasicFileAttributes>> visitor;
+
+    /**
+     * Number of workers.
+     */
+    private final transient int workers;
+
+    /**
+     * Runner for blocking work.
+     */
+    private final transient Blocking blocking;
+
+    /**
+     * Ctor.
+     *
+     * @param cvisitor Closure executed for every directory.
+     */
+    Walk(final Consumer<Path> cvisitor) {
+        this(cvisitor, 1);
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param cvisitor Closure executed for every directory.
+     * @param cworkers Number of workers.
+     */
+    Walk(final Consumer<Path> cvisitor, final int cworkers) {
+        this(cvisitor, path -> false, cworkers, 0);
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param cvisitor Closure executed for every directory.
+     * @param cprune Predicate of directories that should not be visited.
+     * @param cworkers Number of workers.
+     * @param inflight Maximum number of directories processed at once
+     *  while workers are blocked, 0 to never exceed number of workers.
+     * @checkstyle ParameterNumberCheck (3 lines)
+     */
+    Walk(final Consumer<Path> cvisitor, final Predicate<Path> cprune,
+        final int cworkers, final int inflight) {
+        this(
+            listing -> {
+                cvisitor.accept(listing.path());
+                return (path, attrs) -> !cprune.test(path);
+            },
+            cworkers,
+            inflight
+        );
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param cvisitor Closure executed for every directory, returns handler
+     *  of its entries that tells if directory entry should be visited.
+     * @param cworkers Number of workers.
+     * @param inflight Maximum number of directories processed at once
+     *  while workers are blocked, 0 to never exceed number of workers.
+     */
+    Walk(final Function<Listing, BiPredicate<Path, BasicFileAttributes>>
+        cvisitor, final int cworkers, final int inflight) {
+        this(Listing::of, cvisitor, cworkers, inflight);
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param clister Closure that lists directory.
+     * @param cvisitor Closure executed for every directory, returns handler
+     *  of its entries that tells if directory entry should be visited.
+     * @param cworkers Number of workers.
+     * @param inflight Maximum number of directories processed at once
+     *  while workers are blocked, 0 to never exceed number of workers.
+     * @checkstyle ParameterNumberCheck (4 lines)
+     */
+    Walk(final Function<Path, Listing> clister,
+        final Function<Listing, BiPredicate<Path, BasicFileAttributes>>
+        cvisitor, final int cworkers, final int inflight) {
+        this.lister = clister;
+        this.visitor = cvisitor;
+        this.workers = cworkers;
+        this.blocking = new Blocking(inflight);
+    }
+
+    /**
+     * Walk the tree starting from given directory.
+     *
+     * @param root Root directory.
+     */
+    public void start(final Path root) {
+        if (!Files.isDirectory(root, LinkOption.NOFOLLOW_LINKS)) {
+            Logger.debug(this, "Unable to visit %s", root);
+        } else if (this.workers > 1) {
+            this.parallel(root);
+        } else {
+            this.serial(root);
+        }
+    }
+
+    /**
+     * Walk the tree using current thread.
+     *
+     * @param root Root directory.
+     */
+    private void serial(final Path root) {
+        final Deque<Path> pending = new ArrayDeque<>(1);
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            this.visit(pending.pop(), pending::push);
+        }
+    }
+
+    /**
+     * Walk the tree using pool of workers.
+     *
+     * @param root Root directory.
+     */
+    private void parallel(final Path root) {
+        final ForkJoinPool pool = new ForkJoinPool(this.workers);
+        try {
+            pool.invoke(new Walk.Task(null, root));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * List and visit directory.
+     *
+     * @param dir Directory.
+     * @param next Closure executed for every subdirectory to visit.
+     */
+    private void visit(final Path dir, final Consumer<Path> next) {
+        final Listing listing = this.lister.apply(dir);
+        final BiPredicate<Path, BasicFileAttributes> entries =
+            this.visitor.apply(listing);
+        listing.forEach(
+            (entry, attrs) -> {
+                if (entries.test(entry, attrs) && attrs.isDirectory()) {
+                    next.accept(entry);
+                }
+            }
+        );
+    }
+
+    /**
+     * Task that visits single directory and forks one task for each of
+     * its subdirectories. Tasks never wait for their children, so the
+     * depth of the tree does not affect the depth of the stack.
+     */
+    private final class Task extends CountedCompleter<Void> {
+
+        /**
+         * Serialization marker.
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Directory.
+         */
+        private final transient Path dir;
+
+        /**
+         * Ctor.
+         *
+         * @param parent Parent task.
+         * @param cdir Directory.
+         */
+        Task(final CountedCompleter<?> parent, final Path cdir) {
+            super(parent);
+            this.dir = cdir;
+        }
+
+        @Override
+        public void compute() {
+            Walk.this.blocking.run(
+                () -> Walk.this.visit(this.dir, this::spawn)
+            );
+            this.tryComplete();
+        }
+
+        /**
+         * Fork task for subdirectory.
+         *
+         * @param child Subdirectory.
+         */
+        private void spawn(final Path child) {
+            this.addToPendingCount(1);
+            new Walk.Task(this, child).fork();
+        }
+    }
+}
@@ -25,15 +25,11 @@ package com.opentangerine.clean;
 
 import com.google.common.collect.Lists;
 import com.jcabi.log.Logger;
-import java.io.File;
-import java.io.IOException;
 import java.nio.file.Path;
 import java.util.List;
 import java.util.Locale;
+import java.util.Optional;
 import java.util.function.BiConsumer;
-import java.util.function.Function;
-import java.util.regex.Pattern;
-import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.text.WordUtils;
 import org.apache.maven.shared.utils.StringUtils;
 
@@ -91,6 +87,11 @@ interface Wipe {
                 ".sbtserver",
                 "**/*.log"
             )
+        ),
+        new Definition(
+            Type.TRASH,
+            If.fileExists(Trash.NAME),
+            Then.delete(Trash.NAME)
         )
     );
 
@@ -101,7 +102,18 @@ interface Wipe {
      * @param delete Deletion handler.
      * @param path Working directory.
      */
-    void clean(final Delete delete, final Path path);
+    default void clean(final Delete delete, final Path path) {
+        this.clean(delete, Listing.of(path, 0L, delete.metrics()));
+    }
+
+    /**
+     * Clean. This method should cleanup listed directory using provided
+     * delete handler.
+     *
+     * @param delete Deletion handler.
+     * @param listing Listing of working directory.
+     */
+    void clean(final Delete delete, final Listing listing);
 
     /**
      * Available types of default cleaners.
@@ -126,7 +138,12 @@ interface Wipe {
         /**
          * Definition type for Custom .clean.yml projects.
          */
-        OT_CLEAN;
+        OT_CLEAN,
+        /**
+         * Definition type for leftovers of interrupted cleaning in trash
+         * mode.
+         */
+        TRASH;
 
         /**
          * Generates user friendly name of this enumeration.
@@ -154,8 +171,8 @@ interface Wipe {
          * @param name Name of the file.
          * @return Matching behaviour.
          */
-        static Function<Path, Boolean> fileExists(final String name) {
-            return path -> path.resolve(name).toFile().exists();
+        static Marker fileExists(final String name) {
+            return new Marker(name);
         }
 
         /**
@@ -165,35 +182,25 @@ interface Wipe {
          * @param regexp Regular expression to search for.
          * @return Matching behaviour.
          */
-        static Function<Path, Boolean> fileExistsWithRegExp(
+        static Marker fileExistsWithRegExp(
             final String name, final String regexp
         ) {
-            return path -> {
-                boolean result = false;
-                try {
-                    final File file = path.resolve(name).toFile();
-                    if (file.exists()) {
-                        final String text = FileUtils.readFileToString(file);
-                        result = Pattern.compile(regexp).matcher(text).find();
-                        Logger.debug(
-                            If.class,
-                            String.format(
-                                "File found with size: %s | Regexp = %s",
-                                text.length(),
-                                result
-                            )
-                        );
-                    } else {
-                        Logger.debug(
-                            If.class,
-                            String.format("File not found: %s", file)
-                        );
-                    }
-                } catch (final IOException exc) {
-                    throw new IllegalStateException("Unable to read file", exc);
-                }
-                return result;
-            };
+            return If.fileExistsWithRegExp(name, regexp, Probe.LIMIT);
+        }
+
+        /**
+         * Returns true if file exists and contains specific phrase within
+         * first bytes.
+         *
+         * @param name Name of the file.
+         * @param regexp Regular expression to search for.
+         * @param limit Maximum number of bytes to read.
+         * @return Matching behaviour.
+         */
+        static Marker fileExistsWithRegExp(
+            final String name, final String regexp, final long limit
+        ) {
+            return new Marker(name, Optional.of(new Probe(regexp, limit)));
         }
     }
 
@@ -209,9 +216,8 @@ interface Wipe {
          * @return Deleting behaviour.
          */
         static BiConsumer<Delete, Path> delete(final String... deletes) {
-            return (delete, path) -> new Scan()
-                .scan(path, deletes)
-                .forEach(delete::file);
+            final Glob glob = Glob.compile(deletes);
+            return (delete, path) -> delete.matching(path, glob);
         }
 
         /**
@@ -220,10 +226,12 @@ interface Wipe {
          * @return Deleting behaviour.
          */
         static BiConsumer<Delete, Path> useYmlConfig() {
-            return (delete, path) -> Yconfig
-                .load(path.resolve(".clean.yml").toFile())
-                .filesToDelete(path)
-                .forEach(delete::file);
+            return (delete, path) -> delete.matching(
+                path,
+                Yconfig.load(
+                    path.resolve(".clean.yml").toFile(), delete.metrics()
+                ).glob()
+            );
         }
     }
 
@@ -240,7 +248,7 @@ interface Wipe {
         /**
          * Matching behaviour.
          */
-        private final Function<Path, Boolean> matcher;
+        private final Marker matcher;
 
         /**
          * Cleaning behaviour.
@@ -256,7 +264,7 @@ interface Wipe {
          */
         Definition(
             final Type ctype,
-            final Function<Path, Boolean> cmatcher,
+            final Marker cmatcher,
             final BiConsumer<Delete, Path> ccleaner
         ) {
             this.type = ctype;
@@ -265,9 +273,26 @@ interface Wipe {
         }
 
         @Override
-        public void clean(final Delete delete, final Path path) {
-            final boolean result = this.matcher.apply(path);
+        public void clean(final Delete delete, final Listing listing) {
+            this.matched(delete, listing);
+        }
+
+        /**
+         * Clean listed directory if it matches this definition.
+         *
+         * @param delete Deletion handler.
+         * @param listing Listing of working directory.
+         * @return Bit of the type of this definition if it has matched,
+         *  zero otherwise.
+         */
+        public int matched(final Delete delete, final Listing listing) {
+            final Path path = listing.path();
+            final long start = delete.metrics().clock();
+            final boolean result = this.matcher.test(listing);
+            delete.metrics().stop(this.type, start);
+            int bit = 0;
             if (result) {
+                bit = 1 << this.type.ordinal();
                 Logger.debug(
                     this,
                     String.format(
@@ -279,6 +304,16 @@ interface Wipe {
                 );
                 this.cleaner.accept(delete, path);
             }
+            return bit;
+        }
+
+        /**
+         * Name of the marker file of this definition.
+         *
+         * @return Name.
+         */
+        public String marker() {
+            return this.matcher.name();
         }
 
         /**
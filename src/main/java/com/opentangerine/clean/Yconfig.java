@@ -23,14 +23,23 @@
  */
 package com.opentangerine.clean;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Stream;
-import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.yaml.snakeyaml.Yaml;
 
@@ -44,6 +53,26 @@ import org.yaml.snakeyaml.Yaml;
 @SuppressWarnings("PMD.AvoidFieldNameMatchingMethodName")
 public final class Yconfig {
 
+    /**
+     * Maximum number of parsed files kept in memory.
+     */
+    private static final int CACHED = 1024;
+
+    /**
+     * Configs parsed so far, by real path of the file. Shared by all
+     * threads and reused as long as modification time and size of the
+     * file stay the same. Cached configs are never given away, every
+     * caller gets its own copy.
+     */
+    private static final Cache<Path, Stamped<Yconfig>> PARSED =
+        CacheBuilder.newBuilder().maximumSize(Yconfig.CACHED).build();
+
+    /**
+     * Yaml parser of every thread, parser itself is not thread safe.
+     */
+    private static final ThreadLocal<Yaml> YAML =
+        ThreadLocal.withInitial(Yaml::new);
+
     /**
      * List of paths to delete.
      */
@@ -86,25 +115,98 @@ public final class Yconfig {
      * @return Stream of files.
      */
     public Stream<Path> filesToDelete(final Path path) {
-        return new Scan().scan(path, this.deletes);
+        return new Scan().scan(path, this.glob());
     }
 
     /**
-     * Load config from file.
+     * Compiled patterns of files to delete.
+     *
+     * @return Patterns.
+     */
+    Glob glob() {
+        return Glob.compile(
+            this.deletes.toArray(new String[this.deletes.size()])
+        );
+    }
+
+    /**
+     * Load config from file. File is parsed once and parsed config is
+     * reused until the file changes.
      *
      * @param file File.
      * @return Config Object.
      */
     public static Yconfig load(final File file) {
+        return Yconfig.load(file, Metrics.DISABLED);
+    }
+
+    /**
+     * Load config from file. File is parsed once and parsed config is
+     * reused until the file changes, every call returns its own copy.
+     *
+     * @param file File.
+     * @param metrics Metrics of the run.
+     * @return Config Object.
+     */
+    static Yconfig load(final File file, final Metrics metrics) {
         Yconfig config = new Yconfig();
         if (file.exists()) {
-            config = Optional.ofNullable(
-                new Yaml().loadAs(Tool.preprocess(file), Yconfig.class)
-            ).orElse(config);
+            try {
+                final Path path = file.toPath().toRealPath();
+                final BasicFileAttributes attrs = Files.readAttributes(
+                    path, BasicFileAttributes.class
+                );
+                final Stamped<Yconfig> cached =
+                    Yconfig.PARSED.getIfPresent(path);
+                if (cached != null && cached.same(attrs)) {
+                    config = cached.value().copy();
+                } else {
+                    final long start = metrics.clock();
+                    config = Optional.ofNullable(
+                        Yconfig.YAML.get().loadAs(
+                            Tool.preprocess(file), Yconfig.class
+                        )
+                    ).orElse(config);
+                    metrics.stop(Metrics.Phase.YAML, start);
+                    Yconfig.PARSED.put(path, new Stamped<>(attrs, config));
+                    config = config.copy();
+                }
+            } catch (final IOException exc) {
+                throw new IllegalStateException(
+                    "Unable to read config file",
+                    exc
+                );
+            }
         }
         return config;
     }
 
+    /**
+     * Copy of the config, with its own lists.
+     *
+     * @return Copy.
+     */
+    private Yconfig copy() {
+        final Yconfig copy = new Yconfig();
+        copy.deletes = Yconfig.copy(this.deletes);
+        copy.dirs = Yconfig.copy(this.dirs);
+        return copy;
+    }
+
+    /**
+     * Unmodifiable copy of the list, empty if there is no list.
+     *
+     * @param list List, may be null if it is empty in the file.
+     * @return Copy.
+     */
+    private static List<String> copy(final List<String> list) {
+        List<String> result = Collections.emptyList();
+        if (list != null) {
+            result = Collections.unmodifiableList(new ArrayList<>(list));
+        }
+        return result;
+    }
+
     /**
      * Yml related tools.
      */
@@ -112,28 +214,35 @@ public final class Yconfig {
 
         /**
          * Preprocess input file and append double quotes
-         * for all paths in the file.
+         * for all paths in the file. Bytes that are not valid in default
+         * charset are replaced, not rejected.
          *
          * @param file File.
          * @return Preprocessed file.
          */
         static String preprocess(final File file) {
-            try {
-                final String text = FileUtils.readFileToString(file);
-                final String pattern = "- *";
-                return new Replace(text).replace(
+            final String pattern = "- *";
+            final StringWriter output = new StringWriter();
+            try (Reader input = new InputStreamReader(
+                Files.newInputStream(file.toPath()),
+                Charset.defaultCharset().newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE)
+            )) {
+                new Lines().then(
                     line -> line.contains(pattern),
                     line -> StringUtils.join(
                         StringUtils.replace(line, pattern, "- \"*"),
                         "\""
                     )
-                ).output();
+                ).transform(input, output);
             } catch (final IOException exc) {
                 throw new IllegalStateException(
                     "Unable to read config file",
                     exc
                 );
             }
+            return output.toString();
         }
 
     }
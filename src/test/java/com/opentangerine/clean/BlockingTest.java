@@ -0,0 +1,160 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 opentangerine.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.opentangerine.clean;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+/**
+ * Tests for {@link Blocking}.
+ *
+ * @author Grzegorz Gajos (grzegorz.gajos@opentangerine.com)
+ * @version $Id$
+ * @since 1.1
+ */
+public final class BlockingTest {
+
+    /**
+     * Blocking returns the permit of unit that failed.
+     * @throws Exception In case of exception.
+     */
+    @Test
+    public void releasesPermitOfFailedUnit() throws Exception {
+        final int units = 4;
+        final AtomicInteger done = new AtomicInteger();
+        final Blocking blocking = new Blocking(1);
+        BlockingTest.execute(
+            units,
+            () -> {
+                try {
+                    blocking.run(
+                        () -> {
+                            throw new IllegalStateException("failed");
+                        }
+                    );
+                } catch (final IllegalStateException exc) {
+                    blocking.run(done::incrementAndGet);
+                }
+            }
+        );
+        MatcherAssert.assertThat(done.get(), Matchers.is(units));
+    }
+
+    /**
+     * Blocking never runs more units than limit.
+     * @throws Exception In case of exception.
+     */
+    @Test
+    public void respectsLimit() throws Exception {
+        final int limit = 2;
+        final AtomicInteger current = new AtomicInteger();
+        final AtomicInteger max = new AtomicInteger();
+        final Blocking blocking = new Blocking(limit);
+        BlockingTest.execute(
+            limit * limit * limit,
+            () -> blocking.run(
+                () -> {
+                    max.accumulateAndGet(
+                        current.incrementAndGet(), Math::max
+                    );
+                    BlockingTest.await(new CountDownLatch(1));
+                    current.decrementAndGet();
+                }
+            )
+        );
+        MatcherAssert.assertThat(max.get(), Matchers.lessThanOrEqualTo(limit));
+    }
+
+    /**
+     * Blocking keeps more units in flight than workers of the pool.
+     * @throws Exception In case of exception.
+     */
+    @Test
+    public void exceedsWorkersUpToLimit() throws Exception {
+        final int limit = 4;
+        final AtomicInteger current = new AtomicInteger();
+        final AtomicInteger max = new AtomicInteger();
+        final CountDownLatch started = new CountDownLatch(limit);
+        final Blocking blocking = new Blocking(limit);
+        BlockingTest.execute(
+            limit << 1,
+            () -> blocking.run(
+                () -> {
+                    max.accumulateAndGet(
+                        current.incrementAndGet(), Math::max
+                    );
+                    started.countDown();
+                    BlockingTest.await(started);
+                    current.decrementAndGet();
+                }
+            )
+        );
+        MatcherAssert.assertThat(max.get(), Matchers.greaterThan(1));
+        MatcherAssert.assertThat(max.get(), Matchers.lessThanOrEqualTo(limit));
+    }
+
+    /**
+     * Execute units of work on single worker pool.
+     * @param units Number of units.
+     * @param unit Unit of work.
+     * @throws Exception In case of exception.
+     */
+    private static void execute(final int units, final Runnable unit)
+        throws Exception {
+        final ForkJoinPool pool = new ForkJoinPool(1);
+        try {
+            pool.submit(
+                () -> ForkJoinTask.invokeAll(
+                    IntStream.range(0, units)
+                        .mapToObj(it -> ForkJoinTask.adapt(unit))
+                        .collect(Collectors.toList())
+                )
+            ).get(1, TimeUnit.MINUTES);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Wait a moment for latch.
+     * @param latch Latch.
+     * @return True if latch has been released.
+     */
+    private static boolean await(final CountDownLatch latch) {
+        try {
+            return latch.await(100L, TimeUnit.MILLISECONDS);
+        } catch (final InterruptedException exc) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(exc);
+        }
+    }
+}
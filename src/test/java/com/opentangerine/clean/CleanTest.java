@@ -89,6 +89,87 @@ public final class CleanTest {
             .run();
     }
 
+    /**
+     * Check how clean is working in parallel mode.
+     */
+    @Test
+    public void canFindAndDeleteMavenTargetsInParallel() {
+        final Check check = new Check(
+            "a/target/file.txt",
+            "b/target/file.txt",
+            "b/c/target/file.txt",
+            "d/e/f/target/file.txt"
+        )
+            .file("a/pom.xml")
+            .file("b/pom.xml")
+            .file("b/c/pom.xml")
+            .file("d/e/f/pom.xml");
+        check.run(new Mode("-vdp4"));
+    }
+
+    /**
+     * Check how clean is working in trash mode.
+     */
+    @Test
+    public void canFindAndDeleteMavenTargetsUsingTrash() {
+        new Check(
+            "a/target/file.txt",
+            "a/target/sub/file.txt",
+            "b/target/file.txt"
+        )
+            .file("a/pom.xml")
+            .file("b/pom.xml")
+            .run(new Mode("-vdtp2"));
+        for (final String dir : new String[] {"a", "b"}) {
+            MatcherAssert.assertThat(
+                new File(this.folder.getRoot(), dir).list(),
+                Matchers.arrayContaining("pom.xml")
+            );
+        }
+    }
+
+    /**
+     * Delete leftovers of interrupted cleaning in trash mode.
+     */
+    @Test
+    public void deleteLeftoverTrash() {
+        new Check(".ot-clean-trash/target.1234/file.txt")
+            .run(Wipe.Type.TRASH);
+    }
+
+    /**
+     * Delete leftovers of interrupted cleaning next to matches moved to
+     * trash by the current run.
+     * @throws IOException In case of exception.
+     */
+    @Test
+    public void deleteLeftoverTrashNextToMatches() throws IOException {
+        final File root = this.folder.getRoot();
+        for (int idx = 0; idx < 200; ++idx) {
+            FileUtils.write(
+                new File(root, String.format("a/target/%d.txt", idx)),
+                "target"
+            );
+            FileUtils.write(
+                new File(
+                    root,
+                    String.format("a/.ot-clean-trash/target.1234/%d.txt", idx)
+                ),
+                "trash"
+            );
+        }
+        FileUtils.write(new File(root, "a/pom.xml"), "");
+        final Mode mode = new Mode("-dtp4");
+        final Summary summary = new Summary(mode);
+        new Clean(mode, new Index(), summary).clean(root.toPath());
+        MatcherAssert.assertThat(summary.failures(), Matchers.is(0L));
+        MatcherAssert.assertThat(summary.elements(), Matchers.is(2L));
+        MatcherAssert.assertThat(
+            new File(root, "a").list(),
+            Matchers.arrayContaining("pom.xml")
+        );
+    }
+
     /**
      * Delete project dir using yaml configuration.
      */
@@ -142,6 +223,24 @@ public final class CleanTest {
             ).run(Wipe.Type.PLAYFRAMEWORK_2);
     }
 
+    /**
+     * Execute cleanup of logs in nested Grails projects.
+     */
+    @Test
+    public void cleanupLogsOfNestedGrailsProjects() {
+        new Check(
+            "grails",
+            false,
+            "a.log",
+            "sub/b.log",
+            "sub/deep/c.log",
+            "sub/target/classes/x.class"
+        )
+            .file("application.properties", "app.grails.version=2")
+            .file("sub/application.properties", "app.grails.version=2")
+            .run();
+    }
+
     /**
      * Execute cleanup from sibling directory using dirs section.
      */
@@ -165,6 +264,27 @@ public final class CleanTest {
             .run();
     }
 
+    /**
+     * Execute cleanup of directories that refer to each other using
+     * dirs section.
+     */
+    @Test
+    public void cleanupDirectoriesReferringToEachOther() {
+        new Check(
+            "two",
+            false,
+            "../one/todelete",
+            "target"
+        )
+            .file(
+                "../one/.clean.yml",
+                "deletes:\n - todelete\ndirs:\n - ../two"
+            )
+            .file("pom.xml")
+            .file(".clean.yml", "dirs:\n - ../one\n - .\n - ../two")
+            .run();
+    }
+
     /**
      * Wildcard testing: Check extension.
      */
@@ -342,7 +462,15 @@ public final class CleanTest {
          * Run cleaning using regular cleaning method.
          */
         public void run() {
-            this.exec(() -> new Clean(this.mode()).clean(this.root));
+            this.run(this.mode());
+        }
+
+        /**
+         * Run cleaning using regular cleaning method in specific mode.
+         * @param mode Cleaning mode.
+         */
+        public void run(final Mode mode) {
+            this.exec(() -> new Clean(mode).clean(this.root));
         }
 
         /**
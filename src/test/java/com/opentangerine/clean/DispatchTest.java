@@ -0,0 +1,98 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 opentangerine.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.opentangerine.clean;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for {@link Dispatch}.
+ *
+ * @author Grzegorz Gajos (grzegorz.gajos@opentangerine.com)
+ * @version $Id$
+ * @since 1.1
+ */
+public final class DispatchTest {
+
+    /**
+     * Temporary dir.
+     */
+    @Rule
+    public transient TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Dispatch runs only definitions whose markers are listed, in the
+     * order of definitions.
+     * @throws IOException In case of exception.
+     */
+    @Test
+    public void runsDefinitionsWithListedMarkers() throws IOException {
+        this.folder.newFile("pom.xml");
+        this.folder.newFile("build.sbt");
+        this.folder.newFile("readme.txt");
+        final List<String> executed = new ArrayList<>(0);
+        final List<Wipe.Definition> definitions = new ArrayList<>(0);
+        for (final String name : new String[] {
+            "build.sbt", "build.gradle", "pom.xml", "build.sbt",
+        }) {
+            final int pos = definitions.size();
+            definitions.add(
+                new Wipe.Definition(
+                    Wipe.Type.MAVEN,
+                    Wipe.If.fileExists(name),
+                    (delete, path) -> executed.add(
+                        String.format("%d:%s", pos, name)
+                    )
+                )
+            );
+        }
+        final Mode mode = new Mode("-d");
+        final Listing listing = Listing.of(this.folder.getRoot().toPath());
+        for (int round = 0; round < 2; ++round) {
+            executed.clear();
+            new Dispatch(definitions).clean(
+                new Delete(mode, new Summary(mode)), listing
+            );
+            MatcherAssert.assertThat(
+                executed,
+                Matchers.contains("0:build.sbt", "2:pom.xml", "3:build.sbt")
+            );
+            for (int idx = 0; idx < listing.size(); ++idx) {
+                definitions.add(
+                    new Wipe.Definition(
+                        Wipe.Type.MAVEN,
+                        Wipe.If.fileExists(String.format("%d.xml", idx)),
+                        (delete, path) -> executed.add("unexpected")
+                    )
+                );
+            }
+        }
+    }
+}
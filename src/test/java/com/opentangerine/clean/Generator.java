@@ -0,0 +1,435 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 opentangerine.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.opentangerine.clean;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Generator of synthetic workspaces. Creates projects of every
+ * {@link Wipe.Type}, mixed with projects that look similar but must not be
+ * touched, and computes what readonly clean should find there, so large
+ * trees can be used to check correctness as well as performance. The same
+ * seed always gives the same tree.
+ *
+ * <p>Projects are spread over two levels of group directories, at most
+ * thousand entries each, and are written one by one, so even trees with
+ * millions of projects never have to be kept in memory.
+ *
+ * @author Grzegorz Gajos (grzegorz.gajos@opentangerine.com)
+ * @version $Id$
+ * @since 1.1
+ * @checkstyle MultipleStringLiteralsCheck (500 lines)
+ */
+@SuppressWarnings("PMD.AvoidDuplicateLiterals")
+final class Generator {
+
+    /**
+     * Number of entries of every group directory.
+     */
+    private static final int FANOUT = 1000;
+
+    /**
+     * Maximum size of generated file.
+     */
+    private static final int BYTES = 2048;
+
+    /**
+     * Seed.
+     */
+    private final transient long seed;
+
+    /**
+     * Number of projects.
+     */
+    private final transient int projects;
+
+    /**
+     * Ctor.
+     *
+     * @param cseed Seed.
+     * @param cprojects Number of projects.
+     */
+    Generator(final long cseed, final int cprojects) {
+        this.seed = cseed;
+        this.projects = cprojects;
+    }
+
+    /**
+     * Create workspace. Projects are created in workspace directory and
+     * projects reachable only by jumps from .clean.yml files in external
+     * one, both of them inside given root.
+     *
+     * @param root Empty directory.
+     * @return What clean of the workspace should find.
+     * @throws IOException If fails.
+     */
+    public Generator.Expected create(final Path root) throws IOException {
+        final Generator.Tree tree = new Generator.Tree(new Random(this.seed));
+        final Path workspace = root.resolve("workspace");
+        final Path external = root.resolve("external");
+        final Wipe.Type[] types = Wipe.Type.values();
+        for (int idx = 0; idx < this.projects; ++idx) {
+            final Path dir = workspace.resolve(
+                String.format(
+                    "%03d/%03d/p%d",
+                    idx / Generator.FANOUT / Generator.FANOUT,
+                    idx / Generator.FANOUT % Generator.FANOUT,
+                    idx
+                )
+            );
+            final int kind = tree.random.nextInt(types.length + 1);
+            if (kind == types.length) {
+                tree.decoy(dir);
+            } else if (types[kind] == Wipe.Type.OT_CLEAN) {
+                tree.custom(dir, external.resolve(String.format("e%d", idx)));
+            } else {
+                tree.project(types[kind], dir);
+            }
+        }
+        return new Generator.Expected(
+            workspace, tree.elements, tree.bytes, tree.files
+        );
+    }
+
+    /**
+     * What clean should find in the workspace.
+     */
+    static final class Expected {
+
+        /**
+         * Directory to clean.
+         */
+        private final transient Path dir;
+
+        /**
+         * Number of matched files and directories.
+         */
+        private final transient long found;
+
+        /**
+         * Number of bytes of matched files and directories.
+         */
+        private final transient long total;
+
+        /**
+         * Number of all generated files.
+         */
+        private final transient long all;
+
+        /**
+         * Ctor.
+         *
+         * @param cdir Directory to clean.
+         * @param cfound Number of matched files and directories.
+         * @param ctotal Number of bytes of matched files and directories.
+         * @param call Number of all generated files.
+         * @checkstyle ParameterNumberCheck (3 lines)
+         */
+        Expected(final Path cdir, final long cfound, final long ctotal,
+            final long call) {
+            this.dir = cdir;
+            this.found = cfound;
+            this.total = ctotal;
+            this.all = call;
+        }
+
+        /**
+         * Directory to clean.
+         *
+         * @return Directory.
+         */
+        public Path workspace() {
+            return this.dir;
+        }
+
+        /**
+         * Number of matched files and directories.
+         *
+         * @return Number of elements.
+         */
+        public long elements() {
+            return this.found;
+        }
+
+        /**
+         * Number of bytes of matched files and directories.
+         *
+         * @return Bytes.
+         */
+        public long bytes() {
+            return this.total;
+        }
+
+        /**
+         * Number of all generated files.
+         *
+         * @return Files.
+         */
+        public long files() {
+            return this.all;
+        }
+    }
+
+    /**
+     * Tree being generated, writes files and counts the ones that should
+     * be found.
+     */
+    private static final class Tree {
+
+        /**
+         * Content of files.
+         */
+        private static final byte[] ZEROS = new byte[Generator.BYTES];
+
+        /**
+         * Source of randomness.
+         */
+        private final transient Random random;
+
+        /**
+         * Number of matched files and directories so far.
+         */
+        private transient long elements;
+
+        /**
+         * Number of bytes of matched files and directories so far.
+         */
+        private transient long bytes;
+
+        /**
+         * Number of files so far.
+         */
+        private transient long files;
+
+        /**
+         * Ctor.
+         *
+         * @param crandom Source of randomness.
+         */
+        Tree(final Random crandom) {
+            this.random = crandom;
+        }
+
+        /**
+         * Create project of given type.
+         *
+         * @param type Type.
+         * @param dir Directory of project.
+         * @throws IOException If fails.
+         */
+        public void project(final Wipe.Type type, final Path dir)
+            throws IOException {
+            this.sources(dir);
+            switch (type) {
+                case MAVEN:
+                    this.text(dir.resolve("pom.xml"), "<project/>");
+                    this.found(this.tree(dir.resolve("target")));
+                    break;
+                case GRAILS_2:
+                    this.text(
+                        dir.resolve("application.properties"),
+                        "app.grails.version=2.5.6"
+                    );
+                    this.found(this.tree(dir.resolve("target")));
+                    this.logs(dir);
+                    break;
+                case GRAILS_3:
+                    this.text(
+                        dir.resolve("build.gradle"),
+                        "apply plugin: \"org.grails.grails-web\""
+                    );
+                    this.found(this.tree(dir.resolve("build")));
+                    this.logs(dir);
+                    break;
+                case PLAYFRAMEWORK_2:
+                    this.text(
+                        dir.resolve("build.sbt"),
+                        "lazy val root = (project in file(\".\"))"
+                            .concat(".enablePlugins(PlayJava)")
+                    );
+                    this.found(this.tree(dir.resolve("logs")));
+                    this.found(this.tree(dir.resolve("target")));
+                    this.found(this.tree(dir.resolve("project/target")));
+                    this.found(
+                        this.tree(dir.resolve("project/project/target"))
+                    );
+                    this.found(this.tree(dir.resolve(".sbtserver")));
+                    this.logs(dir);
+                    break;
+                case TRASH:
+                    this.found(this.tree(dir.resolve(Trash.NAME)));
+                    break;
+                default:
+                    throw new IllegalArgumentException(
+                        String.format("Unable to generate %s", type)
+                    );
+            }
+        }
+
+        /**
+         * Create project with .clean.yml, which optionally jumps to
+         * Maven project outside of the workspace.
+         *
+         * @param dir Directory of project.
+         * @param external Directory of external project.
+         * @throws IOException If fails.
+         */
+        public void custom(final Path dir, final Path external)
+            throws IOException {
+            this.sources(dir);
+            final StringBuilder yml = new StringBuilder("deletes:\n")
+                .append("- *.tmp\n")
+                .append("- out\n");
+            if (this.random.nextBoolean()) {
+                this.project(Wipe.Type.MAVEN, external);
+                yml.append("dirs:\n- ").append(
+                    dir.relativize(external).toString().replace('\\', '/')
+                ).append('\n');
+            }
+            this.text(dir.resolve(".clean.yml"), yml.toString());
+            this.found(this.tree(dir.resolve("out")));
+            final int count = this.random.nextInt(3);
+            for (int idx = 0; idx < count; ++idx) {
+                this.found(
+                    this.file(dir.resolve(String.format("f%d.tmp", idx)))
+                );
+            }
+            this.file(dir.resolve("src/nested.tmp"));
+        }
+
+        /**
+         * Create project that looks similar to matched ones, but does not
+         * match any definition.
+         *
+         * @param dir Directory of project.
+         * @throws IOException If fails.
+         */
+        public void decoy(final Path dir) throws IOException {
+            this.sources(dir);
+            this.text(dir.resolve("application.properties"), "app.name=x");
+            this.text(dir.resolve("build.sbt"), "name := \"decoy\"");
+            this.text(dir.resolve("build.gradle"), "apply plugin: 'java'");
+            this.tree(dir.resolve("target"));
+            this.file(dir.resolve("debug.log"));
+        }
+
+        /**
+         * Create sources, which are never matched.
+         *
+         * @param dir Directory of project.
+         * @throws IOException If fails.
+         */
+        private void sources(final Path dir) throws IOException {
+            Files.createDirectories(dir.resolve("src"));
+            final int count = 1 + this.random.nextInt(4);
+            for (int idx = 0; idx < count; ++idx) {
+                this.file(dir.resolve(String.format("src/C%d.java", idx)));
+            }
+        }
+
+        /**
+         * Create log files, which are matched wherever they are.
+         *
+         * @param dir Directory of project.
+         * @throws IOException If fails.
+         */
+        private void logs(final Path dir) throws IOException {
+            final int count = this.random.nextInt(4);
+            for (int idx = 0; idx < count; ++idx) {
+                Path parent = dir;
+                if (this.random.nextBoolean()) {
+                    parent = dir.resolve("src/logs");
+                    Files.createDirectories(parent);
+                }
+                this.found(
+                    this.file(parent.resolve(String.format("l%d.log", idx)))
+                );
+            }
+        }
+
+        /**
+         * Count matched file or directory.
+         *
+         * @param size Number of bytes of all its files.
+         */
+        private void found(final long size) {
+            ++this.elements;
+            this.bytes += size;
+        }
+
+        /**
+         * Create directory with some files and subdirectories.
+         *
+         * @param dir Directory.
+         * @return Number of bytes of all files.
+         * @throws IOException If fails.
+         */
+        private long tree(final Path dir) throws IOException {
+            Files.createDirectories(dir);
+            long size = 0L;
+            final int count = this.random.nextInt(6);
+            for (int idx = 0; idx < count; ++idx) {
+                final Path sub = dir.resolve(String.format("d%d", idx % 2));
+                Files.createDirectories(sub);
+                size += this.file(sub.resolve(String.format("f%d.bin", idx)));
+            }
+            return size;
+        }
+
+        /**
+         * Create file of random size.
+         *
+         * @param path Path.
+         * @return Size.
+         * @throws IOException If fails.
+         */
+        private long file(final Path path) throws IOException {
+            final int size = this.random.nextInt(Generator.BYTES);
+            try (OutputStream out = Files.newOutputStream(path)) {
+                out.write(Generator.Tree.ZEROS, 0, size);
+            }
+            ++this.files;
+            return size;
+        }
+
+        /**
+         * Create file with given content, which is never matched.
+         *
+         * @param path Path.
+         * @param content Content.
+         * @throws IOException If fails.
+         */
+        private void text(final Path path, final String content)
+            throws IOException {
+            Files.createDirectories(path.getParent());
+            Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+            ++this.files;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 opentangerine.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.opentangerine.clean;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for {@link Generator}.
+ *
+ * @author Grzegorz Gajos (grzegorz.gajos@opentangerine.com)
+ * @version $Id$
+ * @since 1.1
+ */
+public final class GeneratorTest {
+
+    /**
+     * Temporary dir.
+     */
+    @Rule
+    public transient TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Clean finds exactly what has been generated, in serial and parallel
+     * mode.
+     * @throws IOException In case of exception.
+     */
+    @Test
+    public void cleanFindsGeneratedMatches() throws IOException {
+        final Generator.Expected expected = new Generator(7L, 300)
+            .create(this.folder.getRoot().toPath());
+        for (final String args : new String[] {"", "-p4"}) {
+            final Mode mode = new Mode(args);
+            final Summary summary = new Summary(mode);
+            new Clean(mode, new Index(), summary).clean(expected.workspace());
+            MatcherAssert.assertThat(
+                summary.elements(),
+                Matchers.equalTo(expected.elements())
+            );
+            MatcherAssert.assertThat(
+                summary.bytes(),
+                Matchers.equalTo(expected.bytes())
+            );
+        }
+    }
+
+    /**
+     * Generator creates the same tree for the same seed.
+     * @throws IOException In case of exception.
+     */
+    @Test
+    public void createsSameTreeForSameSeed() throws IOException {
+        final Path first = this.folder.newFolder("a").toPath();
+        final Path second = this.folder.newFolder("b").toPath();
+        new Generator(3L, 50).create(first);
+        new Generator(3L, 50).create(second);
+        final List<String> expected = GeneratorTest.tree(first);
+        MatcherAssert.assertThat(
+            expected,
+            Matchers.hasSize(Matchers.greaterThan(1))
+        );
+        MatcherAssert.assertThat(
+            GeneratorTest.tree(second),
+            Matchers.equalTo(expected)
+        );
+    }
+
+    /**
+     * Sorted relative paths of everything in the tree, with sizes of files.
+     * @param root Root of the tree.
+     * @return Listing.
+     * @throws IOException In case of exception.
+     */
+    private static List<String> tree(final Path root) throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            return paths
+                .map(
+                    path -> {
+                        long size = -1L;
+                        if (Files.isRegularFile(path)) {
+                            size = path.toFile().length();
+                        }
+                        return String.format(
+                            "%s %d", root.relativize(path), size
+                        );
+                    }
+                )
+                .sorted()
+                .collect(Collectors.toList());
+        }
+    }
+}
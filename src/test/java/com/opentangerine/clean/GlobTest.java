@@ -0,0 +1,145 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 opentangerine.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.opentangerine.clean;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.stream.Collectors;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for {@link Glob}.
+ *
+ * @author Grzegorz Gajos (grzegorz.gajos@opentangerine.com)
+ * @version $Id$
+ * @since 1.1
+ */
+public final class GlobTest {
+
+    /**
+     * Temporary dir.
+     */
+    @Rule
+    public transient TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Glob matches names with wildcards ignoring case.
+     */
+    @Test
+    public void matchesWildcardsIgnoringCase() {
+        final Glob glob = Glob.compile("test/a??.java", "*.LOG");
+        MatcherAssert.assertThat(
+            glob.matches("Test", "abc.java"), Matchers.is(true)
+        );
+        MatcherAssert.assertThat(
+            glob.matches("test", "abcd.java"), Matchers.is(false)
+        );
+        MatcherAssert.assertThat(
+            glob.matches("server.log"), Matchers.is(true)
+        );
+        MatcherAssert.assertThat(
+            glob.matches("logs", "server.log"), Matchers.is(false)
+        );
+    }
+
+    /**
+     * Glob matches any number of directories with double star.
+     */
+    @Test
+    public void matchesAnyDirectoriesWithDoubleStar() {
+        final Glob glob = Glob.compile("**\\test\\**\\XYZ*", "logs/");
+        MatcherAssert.assertThat(
+            glob.matches("abc", "test", "def", "ghi", "XYZ123"),
+            Matchers.is(true)
+        );
+        MatcherAssert.assertThat(
+            glob.matches("test", "xyz"), Matchers.is(true)
+        );
+        MatcherAssert.assertThat(
+            glob.matches("abc", "XYZ123"), Matchers.is(false)
+        );
+        MatcherAssert.assertThat(
+            glob.matches("logs", "a", "b.txt"), Matchers.is(true)
+        );
+    }
+
+    /**
+     * Glob knows when nothing below a directory can match.
+     */
+    @Test
+    public void knowsWhenNothingMoreCanMatch() {
+        final Glob glob = Glob.compile("target", "project/target");
+        MatcherAssert.assertThat(
+            glob.start().next("target").alive(), Matchers.is(false)
+        );
+        MatcherAssert.assertThat(
+            glob.start().next("src").alive(), Matchers.is(false)
+        );
+        MatcherAssert.assertThat(
+            glob.start().next("project").alive(), Matchers.is(true)
+        );
+        MatcherAssert.assertThat(
+            Glob.compile("**/*.log").start().next("src").alive(),
+            Matchers.is(true)
+        );
+    }
+
+    /**
+     * Glob compiles every set of patterns once.
+     */
+    @Test
+    public void compilesPatternsOnce() {
+        MatcherAssert.assertThat(
+            Glob.compile("target", "*.log"),
+            Matchers.sameInstance(Glob.compile("target", "*.log"))
+        );
+    }
+
+    /**
+     * Scan does not look inside directories that cannot contain a match.
+     * @throws IOException In case of exception.
+     */
+    @Test
+    public void scanSkipsDirectoriesWithoutMatches() throws IOException {
+        this.folder.newFolder("target", "target");
+        this.folder.newFolder("src", "target");
+        this.folder.newFolder("project", "target");
+        this.folder.newFile("Target.txt");
+        final Path root = this.folder.getRoot().toPath();
+        MatcherAssert.assertThat(
+            new Scan()
+                .scan(root, "target", "project/target", "*.txt")
+                .collect(Collectors.toList()),
+            Matchers.containsInAnyOrder(
+                root.resolve("target"),
+                root.resolve("project/target"),
+                root.resolve("Target.txt")
+            )
+        );
+    }
+}
@@ -0,0 +1,162 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 opentangerine.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.opentangerine.clean;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.TimeUnit;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for {@link Index}.
+ *
+ * @author Grzegorz Gajos (grzegorz.gajos@opentangerine.com)
+ * @version $Id$
+ * @since 1.1
+ */
+public final class IndexTest {
+
+    /**
+     * Temporary dir.
+     */
+    @Rule
+    public transient TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Index does not list unchanged directory where nothing matched.
+     * @throws IOException In case of exception.
+     */
+    @Test
+    public void skipsListingOfUnchangedDirectory() throws IOException {
+        this.folder.newFolder("a", "b");
+        this.folder.newFile("a/file.txt");
+        final Path root = this.folder.getRoot().toPath();
+        final Path dir = root.resolve("a");
+        IndexTest.age(dir);
+        final Path file = root.resolve("index");
+        final Index first = new Index(file);
+        first.record(first.list(dir, true), 0);
+        first.save(root);
+        MatcherAssert.assertThat(
+            new Index(file).list(dir, true).names(),
+            Matchers.contains("b")
+        );
+        MatcherAssert.assertThat(
+            new Index(file).list(dir, false).names(),
+            Matchers.containsInAnyOrder("b", "file.txt")
+        );
+        this.folder.newFile("a/other.txt");
+        MatcherAssert.assertThat(
+            new Index(file).list(dir, true).names(),
+            Matchers.containsInAnyOrder("b", "file.txt", "other.txt")
+        );
+    }
+
+    /**
+     * Index lists unchanged directory if something matched it.
+     * @throws IOException In case of exception.
+     */
+    @Test
+    public void listsMatchedDirectory() throws IOException {
+        this.folder.newFile("pom.xml");
+        final Path root = this.folder.getRoot().toPath();
+        IndexTest.age(root);
+        final Path file = this.folder.newFolder("home").toPath()
+            .resolve("index");
+        final Index first = new Index(file);
+        first.record(first.list(root, true), 1);
+        first.save(root);
+        MatcherAssert.assertThat(
+            new Index(file).list(root, true).names(),
+            Matchers.hasItem("pom.xml")
+        );
+    }
+
+    /**
+     * Clean measures matched directory again, even if it has changed only
+     * deeper inside.
+     * @throws IOException In case of exception.
+     */
+    @Test
+    public void measuresDeeplyChangedDirectory() throws IOException {
+        this.folder.newFolder("project", "target", "classes");
+        this.folder.newFile("project/pom.xml");
+        final Path root = this.folder.getRoot().toPath();
+        final Path target = root.resolve("project/target");
+        Files.write(target.resolve("classes/A.class"), new byte[10]);
+        IndexTest.age(target);
+        IndexTest.age(root.resolve("project"));
+        final Path file = this.folder.newFolder("home").toPath()
+            .resolve("index");
+        final Summary first = new Summary(new Mode());
+        new Clean(new Mode(), new Index(file), first).clean(root);
+        MatcherAssert.assertThat(first.bytes(), Matchers.is(10L));
+        Files.write(target.resolve("classes/B.class"), new byte[5]);
+        final Summary second = new Summary(new Mode());
+        new Clean(new Mode(), new Index(file), second).clean(root);
+        MatcherAssert.assertThat(second.bytes(), Matchers.is(15L));
+    }
+
+    /**
+     * Clean finds the same paths when index is reused.
+     * @throws IOException In case of exception.
+     */
+    @Test
+    public void cleansUsingIndexOfPreviousRun() throws IOException {
+        this.folder.newFolder("project", "target");
+        this.folder.newFolder("other", "nested");
+        this.folder.newFile("project/pom.xml");
+        final Path root = this.folder.getRoot().toPath();
+        final Path target = root.resolve("project/target");
+        IndexTest.age(root.resolve("other/nested"));
+        IndexTest.age(root.resolve("other"));
+        IndexTest.age(root.resolve("project"));
+        final Path file = this.folder.newFolder("home").toPath()
+            .resolve("index");
+        new Clean(new Mode(), new Index(file)).clean(root);
+        MatcherAssert.assertThat(Files.exists(target), Matchers.is(true));
+        new Clean(new Mode("-d"), new Index(file)).clean(root);
+        MatcherAssert.assertThat(Files.exists(target), Matchers.is(false));
+    }
+
+    /**
+     * Move modification time of path to the past.
+     * @param path Path.
+     * @throws IOException In case of exception.
+     */
+    private static void age(final Path path) throws IOException {
+        Files.setLastModifiedTime(
+            path,
+            FileTime.fromMillis(
+                System.currentTimeMillis() - TimeUnit.HOURS.toMillis(1L)
+            )
+        );
+    }
+}
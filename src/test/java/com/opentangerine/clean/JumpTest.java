@@ -0,0 +1,81 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 opentangerine.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.opentangerine.clean;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.commons.io.FileUtils;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for {@link Jump}.
+ *
+ * @author Grzegorz Gajos (grzegorz.gajos@opentangerine.com)
+ * @version $Id$
+ * @since 1.1
+ */
+public final class JumpTest {
+
+    /**
+     * Temporary dir.
+     */
+    @Rule
+    public transient TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Jump crawls every directory once, even if it is referenced many
+     * times using different paths.
+     * @throws IOException In case of exception.
+     */
+    @Test
+    public void crawlsEveryTargetOnce() throws IOException {
+        final File one = this.folder.newFolder("one");
+        this.folder.newFolder("two", "nested");
+        FileUtils.write(
+            new File(one, ".clean.yml"),
+            "dirs:\n - ../two\n - ../two/\n - ../one/../two\n - .\n - missing"
+        );
+        final Path root = one.toPath();
+        final Jump jump = new Jump(root);
+        final List<Path> crawled = new ArrayList<>(0);
+        jump.run(
+            path -> {
+                crawled.add(path);
+                jump.schedule(root);
+                jump.schedule(path.resolve("nested"));
+            }
+        );
+        MatcherAssert.assertThat(
+            crawled,
+            Matchers.contains(root, root.resolve("../two"))
+        );
+    }
+}
@@ -0,0 +1,72 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 opentangerine.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.opentangerine.clean;
+
+import com.google.common.collect.ImmutableMap;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+/**
+ * Tests for {@link Literals}.
+ *
+ * @author Grzegorz Gajos (grzegorz.gajos@opentangerine.com)
+ * @version $Id$
+ * @since 1.1
+ */
+public final class LiteralsTest {
+
+    /**
+     * Literals prefers leftmost and then the longest match and never
+     * replaces the same text twice.
+     */
+    @Test
+    public void replacesLeftmostLongest() {
+        MatcherAssert.assertThat(
+            new Literals(
+                ImmutableMap.of(
+                    "abc", "1", "bcd", "2", "ab", "3", "c", "a", "x", "c"
+                )
+            ).replace("abcd bcd abx cx abab"),
+            Matchers.equalTo("1d 2 3c ac 33")
+        );
+    }
+
+    /**
+     * Literals returns the same text if there is nothing to replace.
+     */
+    @Test
+    public void keepsTextWithoutLiterals() {
+        final String text = "aaab";
+        MatcherAssert.assertThat(
+            new Literals(ImmutableMap.of("aab", "x", "ac", "y"))
+                .replace("aac"),
+            Matchers.equalTo("ay")
+        );
+        MatcherAssert.assertThat(
+            new Literals(ImmutableMap.of("abc", "x")).replace(text),
+            Matchers.sameInstance(text)
+        );
+    }
+}
@@ -0,0 +1,89 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 opentangerine.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.opentangerine.clean;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import org.apache.commons.io.FileUtils;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for {@link Metrics}.
+ *
+ * @author Grzegorz Gajos (grzegorz.gajos@opentangerine.com)
+ * @version $Id$
+ * @since 1.1
+ */
+public final class MetricsTest {
+
+    /**
+     * Temporary dir.
+     */
+    @Rule
+    public transient TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Metrics of the run are written to JSON and Prometheus files.
+     * @throws IOException In case of exception.
+     */
+    @Test
+    public void writesMetricsOfRun() throws IOException {
+        this.folder.newFolder("project", "target");
+        this.folder.newFile("project/pom.xml");
+        FileUtils.write(
+            this.folder.newFile("project/target/a.bin"), "abcd",
+            StandardCharsets.UTF_8
+        );
+        final File json = new File(this.folder.getRoot(), "metrics.json");
+        new Clean(String.format("--metrics=%s", json)).clean(
+            this.folder.getRoot().toPath().resolve("project")
+        );
+        MatcherAssert.assertThat(
+            FileUtils.readFileToString(json, StandardCharsets.UTF_8),
+            Matchers.allOf(
+                Matchers.containsString("\"directories_visited_total\":1,"),
+                Matchers.containsString("\"sized_bytes_total\":4,"),
+                Matchers.containsString("\"match_maven\":{\"count\":1,")
+            )
+        );
+        final File prom = new File(this.folder.getRoot(), "metrics.prom");
+        new Clean("-d", String.format("--metrics=%s", prom)).clean(
+            this.folder.getRoot().toPath().resolve("project")
+        );
+        MatcherAssert.assertThat(
+            FileUtils.readFileToString(prom, StandardCharsets.UTF_8),
+            Matchers.allOf(
+                Matchers.containsString("ot_clean_deleted_bytes_total 4\n"),
+                Matchers.containsString(
+                    "ot_clean_seconds_count{phase=\"delete_file\"} 1\n"
+                )
+            )
+        );
+    }
+}
@@ -55,4 +55,60 @@ public final class ModeTest {
         final Mode mode = new Mode("-dr");
         MatcherAssert.assertThat(mode.readonly(), Matchers.is(false));
     }
+
+    /**
+     * Mode can recognize number of workers.
+     */
+    @Test
+    public void canRecognizeNumberOfWorkers() {
+        MatcherAssert.assertThat(new Mode("-d").workers(), Matchers.is(1));
+        MatcherAssert.assertThat(new Mode("-dp8").workers(), Matchers.is(8));
+        MatcherAssert.assertThat(
+            new Mode("-d", "-p12", "-v").workers(),
+            Matchers.is(12)
+        );
+        MatcherAssert.assertThat(
+            new Mode("-p").workers(),
+            Matchers.greaterThanOrEqualTo(1)
+        );
+    }
+
+    /**
+     * Mode can recognize limit of directories in flight.
+     */
+    @Test
+    public void canRecognizeInflightLimit() {
+        MatcherAssert.assertThat(new Mode("-dp8").inflight(), Matchers.is(0));
+        MatcherAssert.assertThat(
+            new Mode("-dp8l1000").inflight(),
+            Matchers.is(1000)
+        );
+        MatcherAssert.assertThat(
+            new Mode("-p", "-l").inflight(),
+            Matchers.greaterThan(0)
+        );
+    }
+
+    /**
+     * Mode can recognize long options without mixing them with short ones.
+     */
+    @Test
+    public void canRecognizeLongOptions() {
+        final Mode mode = new Mode("-d", "--metrics=/tmp/prometheus.prom");
+        MatcherAssert.assertThat(
+            mode.metrics().get(),
+            Matchers.is("/tmp/prometheus.prom")
+        );
+        MatcherAssert.assertThat(mode.workers(), Matchers.is(1));
+        MatcherAssert.assertThat(mode.trash(), Matchers.is(false));
+        MatcherAssert.assertThat(mode.incremental(), Matchers.is(false));
+        MatcherAssert.assertThat(
+            new Mode("-v", "--metrics").metrics().get(),
+            Matchers.is("")
+        );
+        MatcherAssert.assertThat(
+            new Mode("-metrics").metrics().isPresent(),
+            Matchers.is(false)
+        );
+    }
 }
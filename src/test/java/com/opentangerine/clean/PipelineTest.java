@@ -0,0 +1,143 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 opentangerine.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.opentangerine.clean;
+
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+/**
+ * Tests for {@link Pipeline}.
+ *
+ * @author Grzegorz Gajos (grzegorz.gajos@opentangerine.com)
+ * @version $Id$
+ * @since 1.1
+ */
+public final class PipelineTest {
+
+    /**
+     * Pipeline passes items through all stages in background and can be
+     * used again after it is finished.
+     */
+    @Test
+    public void passesItemsThroughStages() {
+        final Queue<Integer> out = new ConcurrentLinkedQueue<>();
+        final Pipeline<Integer> pipeline = PipelineTest.pipeline(2, out);
+        for (int round = 0; round < 2; ++round) {
+            out.clear();
+            for (int idx = 0; idx < 100; ++idx) {
+                pipeline.submit(idx);
+            }
+            pipeline.finish();
+            MatcherAssert.assertThat(out, Matchers.hasSize(50));
+            MatcherAssert.assertThat(out, Matchers.hasItems(3, 103, 199));
+        }
+    }
+
+    /**
+     * Pipeline without queues executes stages right away.
+     */
+    @Test
+    public void executesStagesDirectly() {
+        final Queue<Integer> out = new ConcurrentLinkedQueue<>();
+        final Pipeline<Integer> pipeline = PipelineTest.pipeline(0, out);
+        pipeline.submit(2);
+        pipeline.submit(3);
+        MatcherAssert.assertThat(out, Matchers.contains(7));
+    }
+
+    /**
+     * Pipeline drops items that failed in one of the stages, passes the
+     * others and reports the failure when it is finished.
+     */
+    @Test
+    public void survivesFailingStage() {
+        final Queue<Integer> out = new ConcurrentLinkedQueue<>();
+        final Pipeline<Integer> pipeline = new Pipeline<Integer>(1)
+            .stage(
+                "fail",
+                1,
+                it -> {
+                    if (it == 0) {
+                        throw new IllegalStateException("zero");
+                    }
+                    return Optional.of(it);
+                }
+            )
+            .stage("collect", 1, it -> Optional.of(it).filter(out::add));
+        pipeline.submit(0);
+        pipeline.submit(1);
+        String failure = "";
+        try {
+            pipeline.finish();
+        } catch (final IllegalStateException exc) {
+            failure = exc.getCause().getMessage();
+        }
+        MatcherAssert.assertThat(failure, Matchers.equalTo("zero"));
+        MatcherAssert.assertThat(out, Matchers.contains(1));
+        pipeline.submit(2);
+        pipeline.finish();
+        MatcherAssert.assertThat(out, Matchers.contains(1, 2));
+    }
+
+    /**
+     * Pipeline is finished even if error is thrown by every worker of the
+     * stage, and the error is thrown from finish.
+     */
+    @Test(expected = AssertionError.class)
+    public void finishesAfterError() {
+        final Pipeline<Integer> pipeline = new Pipeline<Integer>(1)
+            .stage(
+                "error",
+                2,
+                it -> {
+                    throw new AssertionError(it);
+                }
+            )
+            .stage("next", 1, Optional::of);
+        for (int idx = 0; idx < 10; ++idx) {
+            pipeline.submit(idx);
+        }
+        pipeline.finish();
+    }
+
+    /**
+     * Pipeline that drops even numbers, doubles odd ones, increments them
+     * and collects results.
+     * @param capacity Capacity of the queues.
+     * @param out Results.
+     * @return Pipeline.
+     */
+    private static Pipeline<Integer> pipeline(final int capacity,
+        final Queue<Integer> out) {
+        return new Pipeline<Integer>(capacity)
+            .stage("odd", 2, it -> Optional.of(it).filter(x -> x % 2 == 1))
+            .stage("double", 3, it -> Optional.of(it * 2))
+            .stage("inc", 1, it -> Optional.of(it + 1))
+            .stage("collect", 1, it -> Optional.of(it).filter(out::add));
+    }
+}
@@ -0,0 +1,216 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 opentangerine.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.opentangerine.clean;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for {@link Records}.
+ *
+ * @author Grzegorz Gajos (grzegorz.gajos@opentangerine.com)
+ * @version $Id$
+ * @since 1.1
+ */
+public final class RecordsTest {
+
+    /**
+     * Temporary dir.
+     */
+    @Rule
+    public transient TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Records can be written and found again.
+     * @throws IOException In case of exception.
+     */
+    @Test
+    public void findsWrittenRecords() throws IOException {
+        final Path root = this.folder.getRoot().toPath();
+        final Path file = root.resolve("index");
+        final Map<Path, Index.Record> written = new HashMap<>(0);
+        written.put(
+            root.resolve("a"),
+            new Index.Record(10L, 0, Arrays.asList("b", "target"))
+        );
+        written.put(
+            root.resolve("a/target"),
+            new Index.Record(20L, 0, Collections.emptyList())
+        );
+        written.put(
+            root.resolve("a/b/c"),
+            new Index.Record(30L, 5, Collections.emptyList())
+        );
+        Records.EMPTY.merge(file, root, written);
+        final Records records = Records.open(file);
+        final long dir = records.find(root.resolve("a"));
+        MatcherAssert.assertThat(records.modified(dir), Matchers.is(10L));
+        MatcherAssert.assertThat(
+            records.children(dir), Matchers.contains("b", "target")
+        );
+        final long target = records.find(root.resolve("a/target"));
+        MatcherAssert.assertThat(records.modified(target), Matchers.is(20L));
+        final long deep = records.find(root.resolve("a/b/c"));
+        MatcherAssert.assertThat(records.types(deep), Matchers.is(5));
+        MatcherAssert.assertThat(
+            records.find(root.resolve("a/b")), Matchers.is(-1L)
+        );
+        MatcherAssert.assertThat(
+            records.find(root.resolve("x")), Matchers.is(-1L)
+        );
+    }
+
+    /**
+     * Records of previous run inside of the base directory are replaced,
+     * others are kept.
+     * @throws IOException In case of exception.
+     */
+    @Test
+    public void mergesWithPreviousRecords() throws IOException {
+        final Path root = this.folder.getRoot().toPath();
+        final Path file = root.resolve("index");
+        final Map<Path, Index.Record> previous = new HashMap<>(0);
+        for (final String name : Arrays.asList("a", "a-x", "a/b", "c")) {
+            previous.put(
+                root.resolve(name),
+                new Index.Record(1L, 0, Collections.emptyList())
+            );
+        }
+        Records.EMPTY.merge(file, root, previous);
+        final Map<Path, Index.Record> current = new HashMap<>(0);
+        for (final String name : Arrays.asList("a", "a/d", "c")) {
+            current.put(
+                root.resolve(name),
+                new Index.Record(2L, 0, Collections.emptyList())
+            );
+        }
+        Records.open(file).merge(file, root.resolve("a"), current);
+        final Records records = Records.open(file);
+        MatcherAssert.assertThat(
+            records.find(root.resolve("a/b")), Matchers.is(-1L)
+        );
+        for (final String name : Arrays.asList("a", "a/d", "c")) {
+            MatcherAssert.assertThat(
+                records.modified(records.find(root.resolve(name))),
+                Matchers.is(2L)
+            );
+        }
+        MatcherAssert.assertThat(
+            records.modified(records.find(root.resolve("a-x"))),
+            Matchers.is(1L)
+        );
+    }
+
+    /**
+     * Broken index is ignored.
+     * @throws IOException In case of exception.
+     */
+    @Test
+    public void ignoresBrokenIndex() throws IOException {
+        final Path root = this.folder.getRoot().toPath();
+        final Path file = root.resolve("index");
+        Records.EMPTY.merge(
+            file, root,
+            Collections.singletonMap(
+                root, new Index.Record(1L, 0, Collections.emptyList())
+            )
+        );
+        final Path data = root.resolve("index.1");
+        final byte[] bytes = Files.readAllBytes(data);
+        Files.write(data, Arrays.copyOf(bytes, bytes.length - 1));
+        MatcherAssert.assertThat(
+            Records.open(file).find(root), Matchers.is(-1L)
+        );
+        Files.write(file, bytes);
+        MatcherAssert.assertThat(
+            Records.open(file).find(root), Matchers.is(-1L)
+        );
+    }
+
+    /**
+     * Saving never replaces mapped records, it writes next generation and
+     * deletes the older ones.
+     * @throws IOException In case of exception.
+     */
+    @Test
+    public void savesNextGeneration() throws IOException {
+        final Path root = this.folder.getRoot().toPath();
+        final Path file = root.resolve("index");
+        Records.EMPTY.merge(
+            file, root,
+            Collections.singletonMap(
+                root, new Index.Record(1L, 0, Collections.emptyList())
+            )
+        );
+        final Records first = Records.open(file);
+        first.merge(
+            file, root,
+            Collections.singletonMap(
+                root, new Index.Record(2L, 0, Collections.emptyList())
+            )
+        );
+        MatcherAssert.assertThat(
+            first.modified(first.find(root)), Matchers.is(1L)
+        );
+        final Records second = Records.open(file);
+        MatcherAssert.assertThat(
+            second.modified(second.find(root)), Matchers.is(2L)
+        );
+        MatcherAssert.assertThat(
+            root.toFile().list(),
+            Matchers.arrayContainingInAnyOrder("index", "index.2")
+        );
+    }
+
+    /**
+     * Names of children outside of ASCII are read back as they were.
+     * @throws IOException In case of exception.
+     */
+    @Test
+    public void readsUnicodeNamesOfChildren() throws IOException {
+        final Path root = this.folder.getRoot().toPath();
+        final Path file = root.resolve("index");
+        final String[] names = {"z", "\u00e9", "\u4e2d", "\ud83d\ude00"};
+        Records.EMPTY.merge(
+            file, root,
+            Collections.singletonMap(
+                root, new Index.Record(1L, 0, Arrays.asList(names))
+            )
+        );
+        final Records records = Records.open(file);
+        MatcherAssert.assertThat(
+            records.children(records.find(root)), Matchers.contains(names)
+        );
+    }
+}
@@ -23,6 +23,8 @@
  */
 package com.opentangerine.clean;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.function.Function;
 import org.apache.commons.lang3.StringUtils;
 import org.hamcrest.MatcherAssert;
@@ -116,6 +118,24 @@ public final class ReplaceTest {
         );
     }
 
+    /**
+     * Check replace of many literals at once.
+     */
+    @Test
+    public void replaceManyLiterals() {
+        final Map<String, String> values = new HashMap<>(0);
+        values.put("${HOME}", "/home/user");
+        values.put("${module}", "core");
+        MatcherAssert.assertThat(
+            new Replace("- ${HOME}/${module}/target\n- ${module}.log")
+                .replace(values)
+                .output(),
+            Matchers.equalToIgnoringWhiteSpace(
+                "- /home/user/core/target - core.log"
+            )
+        );
+    }
+
     /**
      * Simple transformation that is adding brackets.
      *
@@ -0,0 +1,231 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 opentangerine.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.opentangerine.clean;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import org.apache.commons.io.FileUtils;
+import org.apache.log4j.AppenderSkeleton;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.apache.log4j.spi.LoggingEvent;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for {@link Report}.
+ *
+ * @author Grzegorz Gajos (grzegorz.gajos@opentangerine.com)
+ * @version $Id$
+ * @since 1.1
+ */
+public final class ReportTest {
+
+    /**
+     * Number of events logged to console, more than it keeps in buffer.
+     */
+    private static final int EVENTS = 5000;
+
+    /**
+     * Temporary dir.
+     */
+    @Rule
+    public transient TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Silent run writes found paths only to NDJSON file.
+     * @throws IOException In case of exception.
+     */
+    @Test
+    public void writesFoundPathsAsNdjson() throws IOException {
+        this.folder.newFolder("project", "target");
+        this.folder.newFile("project/pom.xml");
+        FileUtils.write(
+            this.folder.newFile("project/target/a.bin"), "abc",
+            StandardCharsets.UTF_8
+        );
+        final File out = new File(this.folder.getRoot(), "found.ndjson");
+        final Path project = this.folder.getRoot().toPath().resolve("project");
+        new Clean("--silent", String.format("--ndjson=%s", out)).clean(project);
+        MatcherAssert.assertThat(
+            FileUtils.readLines(out, StandardCharsets.UTF_8),
+            Matchers.contains(
+                String.format(
+                    "{\"event\":\"found\",\"path\":\"%s\",%s}",
+                    project.resolve("target"),
+                    "\"directory\":true,\"bytes\":3"
+                ),
+                String.join(
+                    ",", "{\"event\":\"finished\"", "\"elements\":1",
+                    "\"bytes\":3", "\"failures\":0}"
+                )
+            )
+        );
+    }
+
+    /**
+     * NDJSON report escapes paths and errors, silent report only keeps
+     * totals.
+     * @throws IOException In case of exception.
+     */
+    @Test
+    public void escapesStringsAndKeepsTotals() throws IOException {
+        final File out = this.folder.newFile("failed.ndjson");
+        final Report report = new Report.Ndjson(out.toPath());
+        report.failed(Paths.get("a\"b"), new IOException("x\\y\nz"));
+        report.finished(0L, 0L, 1L);
+        MatcherAssert.assertThat(
+            FileUtils.readLines(out, StandardCharsets.UTF_8).get(0),
+            Matchers.equalTo(
+                String.join(
+                    "", "{\"event\":\"failed\",\"path\":\"a\\\"b\",",
+                    "\"error\":\"java.io.IOException: x\\\\y\\u000az\"}"
+                )
+            )
+        );
+        final Summary summary = new Summary(
+            new Report.All(Collections.emptyList())
+        );
+        summary.add(Paths.get("a"), false, new Size.Bytes(2L, 2L));
+        summary.finished();
+        MatcherAssert.assertThat(summary.bytes(), Matchers.is(2L));
+    }
+
+    /**
+     * NDJSON file is not touched until the first event and it is complete
+     * once the run has finished.
+     * @throws IOException In case of exception.
+     */
+    @Test
+    public void opensNdjsonWithFirstEvent() throws IOException {
+        final File out = this.folder.newFile("lazy.ndjson");
+        FileUtils.write(out, "old", StandardCharsets.UTF_8);
+        final Summary summary = new Summary(
+            new Mode("--silent", String.format("--ndjson=%s", out))
+        );
+        MatcherAssert.assertThat(
+            FileUtils.readFileToString(out, StandardCharsets.UTF_8),
+            Matchers.equalTo("old")
+        );
+        summary.finished();
+        MatcherAssert.assertThat(
+            FileUtils.readLines(out, StandardCharsets.UTF_8),
+            Matchers.contains(Matchers.startsWith("{\"event\":\"finished\""))
+        );
+    }
+
+    /**
+     * Console logs found paths in background, in order, all of them before
+     * the summary, and does nothing if nobody listens.
+     */
+    @Test
+    public void logsFoundPathsBeforeSummary() {
+        final Logger log = Logger.getLogger(Clean.class);
+        final Level level = log.getLevel();
+        final Queue<String> logged = new ConcurrentLinkedQueue<>();
+        final AppenderSkeleton appender = new AppenderSkeleton() {
+            @Override
+            protected void append(final LoggingEvent event) {
+                logged.add(event.getRenderedMessage());
+            }
+
+            @Override
+            public void close() {
+                // nothing to close
+            }
+
+            @Override
+            public boolean requiresLayout() {
+                return false;
+            }
+        };
+        final Path root = this.folder.getRoot().toPath();
+        final AtomicInteger touched = new AtomicInteger();
+        log.addAppender(appender);
+        try {
+            log.setLevel(Level.INFO);
+            final Summary summary = new Summary(new Report.Console(true));
+            for (int idx = 0; idx < ReportTest.EVENTS; ++idx) {
+                summary.add(
+                    root.resolve(String.valueOf(idx)), false,
+                    new Size.Bytes(1L, 1L)
+                );
+            }
+            summary.finished();
+            log.setLevel(Level.WARN);
+            final Report quiet = new Report.Console(true);
+            quiet.found(
+                (Path) Proxy.newProxyInstance(
+                    Path.class.getClassLoader(), new Class<?>[] {Path.class},
+                    (proxy, method, args) -> {
+                        touched.incrementAndGet();
+                        return null;
+                    }
+                ),
+                false, 1L
+            );
+            quiet.finished(1L, 1L, 0L);
+        } finally {
+            log.setLevel(level);
+            log.removeAppender(appender);
+        }
+        final List<String> expected = new ArrayList<>(ReportTest.EVENTS + 1);
+        for (int idx = 0; idx < ReportTest.EVENTS; ++idx) {
+            expected.add(
+                String.format(
+                    "Found file: %s [1 bytes]",
+                    root.resolve(String.valueOf(idx))
+                )
+            );
+        }
+        final String summary = String.format(
+            "Summary: Found %d element(s) [4 KB]", ReportTest.EVENTS
+        );
+        expected.add(summary);
+        MatcherAssert.assertThat(
+            logged.stream()
+                .filter(
+                    line -> line.contains(root.toString())
+                        || line.equals(summary)
+                )
+                .collect(Collectors.toList()),
+            Matchers.equalTo(expected)
+        );
+        MatcherAssert.assertThat(touched.get(), Matchers.is(0));
+    }
+}
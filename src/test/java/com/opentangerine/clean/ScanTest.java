@@ -0,0 +1,104 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 opentangerine.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.opentangerine.clean;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for {@link Scan}.
+ *
+ * @author Grzegorz Gajos (grzegorz.gajos@opentangerine.com)
+ * @version $Id$
+ * @since 1.1
+ */
+public final class ScanTest {
+
+    /**
+     * Temporary dir.
+     */
+    @Rule
+    public transient TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Scan finds matches while stream is consumed, not in advance, so
+     * files removed after the first match are not returned.
+     * @throws IOException In case of exception.
+     */
+    @Test
+    public void findsMatchesWhileConsumed() throws IOException {
+        for (int idx = 0; idx < 50; ++idx) {
+            this.folder.newFolder(String.format("d%d", idx));
+            this.folder.newFile(String.format("d%d/a.log", idx));
+        }
+        final Path root = this.folder.getRoot().toPath();
+        try (Stream<Path> found = new Scan().scan(root, "**/*.log")) {
+            final Iterator<Path> matches = found.iterator();
+            final Path first = matches.next();
+            for (int idx = 0; idx < 50; ++idx) {
+                final Path log = root.resolve(String.format("d%d/a.log", idx));
+                if (!log.equals(first)) {
+                    Files.delete(log);
+                }
+            }
+            MatcherAssert.assertThat(matches.hasNext(), Matchers.is(false));
+        }
+        MatcherAssert.assertThat(
+            new Scan().scan(root, "**/*.log").count(),
+            Matchers.is(1L)
+        );
+    }
+
+    /**
+     * Scan returns matching directory before its content.
+     * @throws IOException In case of exception.
+     */
+    @Test
+    public void returnsDirectoryBeforeContent() throws IOException {
+        this.folder.newFolder("logs", "old");
+        this.folder.newFile("logs/old/a.log");
+        final Path root = this.folder.getRoot().toPath();
+        final List<Path> found = new Scan()
+            .scan(root, "logs/", "**/*.log")
+            .collect(Collectors.toList());
+        MatcherAssert.assertThat(
+            found,
+            Matchers.contains(
+                root.resolve("logs"),
+                root.resolve("logs/old"),
+                root.resolve("logs/old/a.log")
+            )
+        );
+    }
+}
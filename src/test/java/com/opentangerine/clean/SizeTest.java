@@ -0,0 +1,180 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 opentangerine.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.opentangerine.clean;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.commons.io.FileUtils;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for {@link Size}.
+ *
+ * @author Grzegorz Gajos (grzegorz.gajos@opentangerine.com)
+ * @version $Id$
+ * @since 1.1
+ */
+public final class SizeTest {
+
+    /**
+     * Temporary dir.
+     */
+    @Rule
+    public transient TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Size can measure whole directory tree.
+     * @throws IOException In case of exception.
+     */
+    @Test
+    public void measuresDirectoryTree() throws IOException {
+        final File root = this.folder.newFolder("target");
+        FileUtils.write(new File(root, "a.txt"), "four");
+        FileUtils.write(new File(root, "classes/b/c.class"), "six ch");
+        FileUtils.forceMkdir(new File(root, "empty"));
+        MatcherAssert.assertThat(
+            new Size().of(root.toPath()),
+            Matchers.is(FileUtils.sizeOf(root))
+        );
+    }
+
+    /**
+     * Size can measure whole directory tree in parallel.
+     * @throws IOException In case of exception.
+     */
+    @Test
+    public void measuresDirectoryTreeInParallel() throws IOException {
+        final File root = this.folder.newFolder("target");
+        for (int idx = 0; idx < 10; ++idx) {
+            FileUtils.write(
+                new File(root, String.format("m%d/classes/C.class", idx)),
+                String.format("class %d", idx)
+            );
+        }
+        MatcherAssert.assertThat(
+            new Size(4).of(root.toPath()),
+            Matchers.is(FileUtils.sizeOf(root))
+        );
+    }
+
+    /**
+     * Size measures directories using given number of workers of its own
+     * pool, not the common pool.
+     * @throws IOException In case of exception.
+     */
+    @Test
+    public void measuresUsingGivenNumberOfWorkers() throws IOException {
+        final File root = this.folder.newFolder("target");
+        for (int idx = 0; idx < 50; ++idx) {
+            FileUtils.write(
+                new File(root, String.format("m%d/n%d/C.class", idx, idx)),
+                "class"
+            );
+        }
+        final int workers = 2;
+        final Set<String> threads = ConcurrentHashMap.newKeySet();
+        final Size.Bytes bytes = new Size(workers).of(
+            root.toPath(),
+            path -> {
+                threads.add(Thread.currentThread().getName());
+                return false;
+            }
+        );
+        MatcherAssert.assertThat(bytes.total(), Matchers.is(250L));
+        MatcherAssert.assertThat(
+            threads.size(),
+            Matchers.allOf(
+                Matchers.greaterThan(0),
+                Matchers.lessThanOrEqualTo(workers)
+            )
+        );
+        MatcherAssert.assertThat(
+            threads,
+            Matchers.everyItem(
+                Matchers.not(Matchers.containsString("commonPool"))
+            )
+        );
+    }
+
+    /**
+     * Size does not count again files and directories that are already
+     * known, but reports them in total.
+     * @throws IOException In case of exception.
+     */
+    @Test
+    public void separatesKnownBytes() throws IOException {
+        final File root = this.folder.newFolder("project");
+        FileUtils.write(new File(root, "target/a.class"), "1234");
+        FileUtils.write(new File(root, "logs/b.log"), "12");
+        FileUtils.write(new File(root, "c.txt"), "1");
+        for (final int workers : new int[] {1, 2}) {
+            final Size size = new Size(workers);
+            final Path target = root.toPath().resolve("target");
+            final Path log = root.toPath().resolve("logs/b.log");
+            MatcherAssert.assertThat(size.of(target), Matchers.is(4L));
+            final Size.Bytes bytes = size.of(
+                root.toPath(),
+                path -> path.equals(target) || path.equals(log)
+            );
+            MatcherAssert.assertThat(bytes.total(), Matchers.is(7L));
+            MatcherAssert.assertThat(bytes.fresh(), Matchers.is(1L));
+            MatcherAssert.assertThat(
+                size.of(target, it -> false).fresh(),
+                Matchers.is(4L)
+            );
+        }
+    }
+
+    /**
+     * Size can measure single file.
+     * @throws IOException In case of exception.
+     */
+    @Test
+    public void measuresSingleFile() throws IOException {
+        final File file = this.folder.newFile("app.log");
+        FileUtils.write(file, "log line");
+        MatcherAssert.assertThat(
+            new Size().of(file.toPath()),
+            Matchers.is(file.length())
+        );
+    }
+
+    /**
+     * Size of missing file is zero.
+     */
+    @Test
+    public void measuresMissingFile() {
+        MatcherAssert.assertThat(
+            new Size().of(this.folder.getRoot().toPath().resolve("missing")),
+            Matchers.is(0L)
+        );
+    }
+}
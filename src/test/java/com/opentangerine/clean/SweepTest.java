@@ -0,0 +1,116 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 opentangerine.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.opentangerine.clean;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for {@link Sweep}.
+ *
+ * @author Grzegorz Gajos (grzegorz.gajos@opentangerine.com)
+ * @version $Id$
+ * @since 1.1
+ */
+public final class SweepTest {
+
+    /**
+     * Temporary dir.
+     */
+    @Rule
+    public transient TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Sweep finds every match once, even if the same recursive pattern is
+     * registered by nested directories.
+     * @throws IOException In case of exception.
+     */
+    @Test
+    public void findsMatchesOfNestedPatternsOnce() throws IOException {
+        this.folder.newFolder("sub", "deep", "sub");
+        this.folder.newFile("a.log");
+        this.folder.newFile("sub/b.log");
+        this.folder.newFile("sub/deep/c.txt");
+        this.folder.newFile("sub/deep/sub/d.log");
+        final Path root = this.folder.getRoot().toPath();
+        final Glob glob = Glob.compile("**/*.log");
+        for (final int workers : new int[] {1, 2}) {
+            final Queue<Path> found = new ConcurrentLinkedQueue<>();
+            final Sweep sweep = new Sweep(found::add);
+            new Walk(
+                listing -> {
+                    final Path dir = listing.path();
+                    if (dir.equals(root) || dir.endsWith("sub")) {
+                        sweep.add(dir, glob);
+                    }
+                    return sweep.entries(dir, path -> false);
+                },
+                workers,
+                0
+            ).start(root);
+            MatcherAssert.assertThat(
+                found,
+                Matchers.containsInAnyOrder(
+                    root.resolve("a.log"),
+                    root.resolve("sub/b.log"),
+                    root.resolve("sub/deep/sub/d.log")
+                )
+            );
+        }
+    }
+
+    /**
+     * Sweep does not look for matches inside of pruned directories.
+     * @throws IOException In case of exception.
+     */
+    @Test
+    public void skipsPrunedDirectories() throws IOException {
+        this.folder.newFolder("target", "logs");
+        this.folder.newFile("target/logs/a.log");
+        this.folder.newFile("b.log");
+        final Path root = this.folder.getRoot().toPath();
+        final Queue<Path> found = new ConcurrentLinkedQueue<>();
+        final Sweep sweep = new Sweep(found::add);
+        new Walk(
+            listing -> {
+                sweep.add(listing.path(), Glob.compile("**/*.log"));
+                return sweep.entries(
+                    listing.path(), path -> path.endsWith("target")
+                );
+            },
+            1,
+            0
+        ).start(root);
+        MatcherAssert.assertThat(
+            found, Matchers.contains(root.resolve("b.log"))
+        );
+    }
+}
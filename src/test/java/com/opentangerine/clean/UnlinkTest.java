@@ -0,0 +1,84 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 opentangerine.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.opentangerine.clean;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import org.apache.commons.io.FileUtils;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for {@link Unlink}.
+ *
+ * @author Grzegorz Gajos (grzegorz.gajos@opentangerine.com)
+ * @version $Id$
+ * @since 1.1
+ */
+public final class UnlinkTest {
+
+    /**
+     * Temporary dir.
+     */
+    @Rule
+    public transient TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Unlink can delete whole directory tree and measure it.
+     * @throws IOException In case of exception.
+     */
+    @Test
+    public void removesDirectoryTree() throws IOException {
+        final File root = this.folder.newFolder("target");
+        FileUtils.write(new File(root, "a.txt"), "four");
+        FileUtils.write(new File(root, "classes/b/c.class"), "six ch");
+        FileUtils.forceMkdir(new File(root, "empty"));
+        final long bytes = new Unlink(new Summary(new Mode("-d")))
+            .remove(root.toPath());
+        MatcherAssert.assertThat(bytes, Matchers.is(10L));
+        MatcherAssert.assertThat(root.exists(), Matchers.is(false));
+    }
+
+    /**
+     * Unlink removes symbolic links but not files they point to.
+     * @throws IOException In case of exception.
+     */
+    @Test
+    public void doesNotFollowSymbolicLinks() throws IOException {
+        final File outside = this.folder.newFolder("outside");
+        final File kept = new File(outside, "kept.txt");
+        FileUtils.write(kept, "data");
+        final File root = this.folder.newFolder("target");
+        Files.createSymbolicLink(
+            root.toPath().resolve("link"), outside.toPath()
+        );
+        new Unlink(new Summary(new Mode("-d"))).remove(root.toPath());
+        MatcherAssert.assertThat(root.exists(), Matchers.is(false));
+        MatcherAssert.assertThat(kept.exists(), Matchers.is(true));
+    }
+}
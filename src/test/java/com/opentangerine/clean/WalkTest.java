@@ -0,0 +1,142 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 opentangerine.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.opentangerine.clean;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for {@link Walk}.
+ *
+ * @author Grzegorz Gajos (grzegorz.gajos@opentangerine.com)
+ * @version $Id$
+ * @since 1.1
+ */
+public final class WalkTest {
+
+    /**
+     * Temporary dir.
+     */
+    @Rule
+    public transient TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Walk visits every directory once and skips regular files.
+     * @throws IOException In case of exception.
+     */
+    @Test
+    public void visitsEveryDirectoryOnce() throws IOException {
+        this.folder.newFolder("a", "b", "c");
+        this.folder.newFolder("d");
+        this.folder.newFile("a/file.txt");
+        final Path root = this.folder.getRoot().toPath();
+        final List<Path> visited = new ArrayList<>(0);
+        new Walk(visited::add).start(root);
+        MatcherAssert.assertThat(
+            visited,
+            Matchers.containsInAnyOrder(
+                root,
+                root.resolve("a"),
+                root.resolve("a/b"),
+                root.resolve("a/b/c"),
+                root.resolve("d")
+            )
+        );
+    }
+
+    /**
+     * Walk visits every directory once using many workers.
+     * @throws IOException In case of exception.
+     */
+    @Test
+    public void visitsEveryDirectoryOnceInParallel() throws IOException {
+        this.folder.newFolder("a", "b", "c");
+        this.folder.newFolder("d", "e");
+        this.folder.newFile("d/file.txt");
+        final Path root = this.folder.getRoot().toPath();
+        final Queue<Path> visited = new ConcurrentLinkedQueue<>();
+        new Walk(visited::add, 4).start(root);
+        MatcherAssert.assertThat(
+            visited,
+            Matchers.containsInAnyOrder(
+                root,
+                root.resolve("a"),
+                root.resolve("a/b"),
+                root.resolve("a/b/c"),
+                root.resolve("d"),
+                root.resolve("d/e")
+            )
+        );
+    }
+
+    /**
+     * Walk skips pruned directories together with their subtrees.
+     * @throws IOException In case of exception.
+     */
+    @Test
+    public void skipsPrunedSubtrees() throws IOException {
+        this.folder.newFolder("a", "target", "classes");
+        this.folder.newFolder("b", "c");
+        final Path root = this.folder.getRoot().toPath();
+        for (final int workers : new int[] {1, 2}) {
+            final Queue<Path> visited = new ConcurrentLinkedQueue<>();
+            new Walk(
+                visited::add,
+                path -> path.endsWith("target"),
+                workers,
+                0
+            ).start(root);
+            MatcherAssert.assertThat(
+                visited,
+                Matchers.containsInAnyOrder(
+                    root,
+                    root.resolve("a"),
+                    root.resolve("b"),
+                    root.resolve("b/c")
+                )
+            );
+        }
+    }
+
+    /**
+     * Walk does not fail if directory does not exist.
+     */
+    @Test
+    public void ignoresMissingDirectory() {
+        final List<Path> visited = new ArrayList<>(0);
+        new Walk(visited::add).start(
+            this.folder.getRoot().toPath().resolve("missing")
+        );
+        MatcherAssert.assertThat(visited, Matchers.empty());
+    }
+}
@@ -28,6 +28,7 @@ import java.io.IOException;
 import java.nio.file.Path;
 import java.util.function.Function;
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.StringUtils;
 import org.hamcrest.MatcherAssert;
 import org.hamcrest.Matchers;
 import org.junit.Rule;
@@ -100,4 +101,111 @@ public final class WipeTest {
         Wipe.If.fileExistsWithRegExp(".", "")
             .apply(this.folder.getRoot().toPath());
     }
+
+    /**
+     * Check behaviour {@link Wipe.If#fileExistsWithRegExp}.
+     * Should find phrase spanning chunks of big file and ignore phrase
+     * beyond the limit of bytes.
+     * @throws IOException In case of exception.
+     */
+    @Test
+    public void shouldFindRegExpInBigFileWithinLimit() throws IOException {
+        final File file = this.folder.newFile();
+        FileUtils.write(
+            file,
+            String.format(
+                "%sapply plugin: 'org.grails'%s",
+                StringUtils.repeat('x', 8190),
+                StringUtils.repeat('y', 100_000)
+            )
+        );
+        final Path root = this.folder.getRoot().toPath();
+        MatcherAssert.assertThat(
+            Wipe.If.fileExistsWithRegExp(
+                file.getName(), "apply plugin:.*org.grails"
+            ).apply(root),
+            Matchers.is(true)
+        );
+        MatcherAssert.assertThat(
+            Wipe.If.fileExistsWithRegExp(
+                file.getName(), "apply plugin:.*org.grails", 1024L
+            ).apply(root),
+            Matchers.is(false)
+        );
+    }
+
+    /**
+     * Check behaviour {@link Wipe.If#fileExistsWithRegExp}.
+     * Should match anchors only at the start and end of the file, even
+     * when they meet boundary of chunks.
+     * @throws IOException In case of exception.
+     */
+    @Test
+    public void shouldMatchAnchorsOnlyAtEdgesOfFile() throws IOException {
+        final File file = this.folder.newFile();
+        FileUtils.write(
+            file,
+            String.format(
+                "%syz%s",
+                StringUtils.repeat('x', 16_383),
+                StringUtils.repeat('x', 100)
+            )
+        );
+        final Path root = this.folder.getRoot().toPath();
+        for (final String regexp : new String[] {"y$", "^z", "\\Az"}) {
+            MatcherAssert.assertThat(
+                Wipe.If.fileExistsWithRegExp(file.getName(), regexp)
+                    .apply(root),
+                Matchers.is(false)
+            );
+        }
+        for (final String regexp : new String[] {"^x", "x$", "(?<=y)z"}) {
+            MatcherAssert.assertThat(
+                Wipe.If.fileExistsWithRegExp(file.getName(), regexp)
+                    .apply(root),
+                Matchers.is(true)
+            );
+        }
+    }
+
+    /**
+     * Check behaviour {@link Wipe.If#fileExistsWithRegExp}.
+     * Should notice that file has changed.
+     * @throws IOException In case of exception.
+     */
+    @Test
+    public void shouldProbeChangedFileAgain() throws IOException {
+        final File file = this.folder.newFile();
+        FileUtils.write(file, "missing");
+        final Path root = this.folder.getRoot().toPath();
+        final Function<Path, Boolean> behaviour = Wipe.If
+            .fileExistsWithRegExp(file.getName(), "app.grails.version");
+        MatcherAssert.assertThat(behaviour.apply(root), Matchers.is(false));
+        FileUtils.write(file, "app.grails.version=2.5");
+        MatcherAssert.assertThat(behaviour.apply(root), Matchers.is(true));
+    }
+
+    /**
+     * Check behaviour {@link Wipe.If#fileExists}.
+     * Should use listing of the directory instead of the file system.
+     * @throws IOException In case of exception.
+     */
+    @Test
+    public void shouldCheckMarkerAgainstListing() throws IOException {
+        this.folder.newFile("pom.xml");
+        final Listing listing = Listing.of(this.folder.getRoot().toPath());
+        MatcherAssert.assertThat(
+            Wipe.If.fileExists("pom.xml").test(listing),
+            Matchers.is(true)
+        );
+        MatcherAssert.assertThat(
+            Wipe.If.fileExists("build.sbt").test(listing),
+            Matchers.is(false)
+        );
+        this.folder.newFile("build.sbt");
+        MatcherAssert.assertThat(
+            Wipe.If.fileExists("build.sbt").test(listing),
+            Matchers.is(false)
+        );
+    }
 }
@@ -25,9 +25,13 @@ package com.opentangerine.clean;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Collections;
+import org.apache.commons.io.FileUtils;
 import org.hamcrest.MatcherAssert;
 import org.hamcrest.Matchers;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.yaml.snakeyaml.error.YAMLException;
 
 /**
@@ -39,6 +43,12 @@ import org.yaml.snakeyaml.error.YAMLException;
  */
 public final class YconfigTest {
 
+    /**
+     * Temporary dir.
+     */
+    @Rule
+    public transient TemporaryFolder folder = new TemporaryFolder();
+
     /**
      * Throws illegal state exception when file is unknown.
      * @throws IOException if fails.
@@ -48,6 +58,23 @@ public final class YconfigTest {
         Yconfig.Tool.preprocess(new File("unknown"));
     }
 
+    /**
+     * Bytes that are not valid in default charset do not break reading.
+     * @throws IOException if fails.
+     */
+    @Test
+    public void replacesMalformedInput() throws IOException {
+        final File file = this.folder.newFile(".clean.yml");
+        FileUtils.writeByteArrayToFile(
+            file,
+            new byte[] {'#', ' ', (byte) 0xff, (byte) 0xfe, '\n', 'a', '\n'}
+        );
+        MatcherAssert.assertThat(
+            Yconfig.Tool.preprocess(file),
+            Matchers.endsWith(String.format("a%s", System.lineSeparator()))
+        );
+    }
+
     /**
      * Check if empty file is ok for parser.
      * @throws IOException if fails.
@@ -87,6 +114,30 @@ public final class YconfigTest {
         MatcherAssert.assertThat(config, Matchers.notNullValue());
     }
 
+    /**
+     * Check if file is parsed again only when it changes.
+     * @throws IOException if fails.
+     */
+    @Test
+    public void parsesFileOnceUntilItChanges() throws IOException {
+        final File file = this.folder.newFile(".clean.yml");
+        FileUtils.write(file, "deletes:\n - target");
+        final Metrics metrics = new Metrics(new Mode("--metrics"));
+        final Yconfig config = Yconfig.load(file, metrics);
+        config.setDirs(Collections.singletonList("../changed"));
+        MatcherAssert.assertThat(
+            Yconfig.load(file, metrics).dirs().count(), Matchers.is(0L)
+        );
+        MatcherAssert.assertThat(
+            metrics.json(),
+            Matchers.containsString("\"yaml_parse\":{\"count\":1,")
+        );
+        FileUtils.write(file, "deletes:\n - target\ndirs:\n - ../other");
+        MatcherAssert.assertThat(
+            Yconfig.load(file).dirs().count(), Matchers.is(1L)
+        );
+    }
+
     /**
      * Load example file.
      * @param name Name of example file.